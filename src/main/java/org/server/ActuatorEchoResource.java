@@ -25,7 +25,9 @@ import org.json.JSONObject;
  * 
  * This resource is used by the actuator usecase.
  * The client echoes the actuator message on this resource. It is
- * used to measure the round trip time of the actuator message
+ * used to measure the round trip time of the actuator message.
+ * An optional "actuator-received" field with the receive time of the
+ * notification in server time splits it into downlink and uplink latency.
  */
 public class ActuatorEchoResource extends CoapResource {
 
@@ -55,7 +57,7 @@ public class ActuatorEchoResource extends CoapResource {
     public void handlePUT(CoapExchange exchange) {
 
         // Print received message
-        System.out.println(ServerTimestamp.getElapsedTime()+"Received PUT, Resource: actuatorecho, Payload: " + new String(exchange.getRequestPayload()));
+        ServerLog.info("Received PUT, Resource: actuatorecho, Payload: " + new String(exchange.getRequestPayload()));
         
         // Parse payload
         try {
@@ -65,12 +67,13 @@ public class ActuatorEchoResource extends CoapResource {
                 
                 // Update actuator statistics
                 int messageId = data.getInt("actuator-echo");
-                this.sharedData.actuatorStatistics.received(messageId);
+                long received = data.optLong("actuator-received", -1);
+                this.sharedData.actuatorStatistics.received(messageId, received);
             } else {
-                System.out.println("Invalid payload format");
+                ServerLog.info("Invalid payload format");
             }
         } catch (Exception e) {
-            System.out.println("Invalid payload format");
+            ServerLog.info("Invalid payload format");
         }
 
         //noresponse
@@ -0,0 +1,311 @@
+/********************************************************************************
+ * Copyright (c) 12-20-2024 Contributors to the Eclipse Foundation
+ * 
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ * 
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0, or the Eclipse Distribution License
+ * v1.0 which is available at
+ * https://www.eclipse.org/org/documents/edl-v10.php.
+ * 
+ * SPDX-License-Identifier: EPL-2.0 OR BSD-3-Clause
+ ********************************************************************************/
+
+package org.server;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.NetworkInterface;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+import org.eclipse.californium.core.CoapResource;
+import org.eclipse.californium.core.coap.CoAP.ResponseCode;
+import org.eclipse.californium.core.coap.CoAP.Type;
+import org.eclipse.californium.core.coap.MediaTypeRegistry;
+import org.eclipse.californium.core.coap.NoResponseOption;
+import org.eclipse.californium.core.coap.Request;
+import org.eclipse.californium.core.coap.Response;
+import org.eclipse.californium.core.network.Endpoint;
+import org.eclipse.californium.core.network.interceptors.MessageInterceptorAdapter;
+import org.eclipse.californium.core.observe.ObserveRelation;
+import org.eclipse.californium.core.server.resources.CoapExchange;
+import org.eclipse.californium.core.server.resources.Resource;
+import org.eclipse.californium.elements.AddressEndpointContext;
+import org.eclipse.californium.elements.config.Configuration;
+
+/**
+ * ActuatorGroupResource is a CoAP resource that commands groups of actuators.
+ * 
+ * The stations of a group observe "actuatorgroup/NAME", the group is created
+ * with its first request, or at startup if it is configured in
+ * {@link ServerConfig#ACTUATOR_GROUPS}. With the configured actuator
+ * interval, every group encodes its next actuator value once and notifies
+ * all its observers with the same payload. If a multicast group is
+ * configured, the payload of a group with observers or of a configured group
+ * is also sent once as NON PUT request without response to the multicast
+ * address, so the stations listening on it are commanded with one
+ * transmission. Each multicast request leases a message ID of the small
+ * multicast range for the exchange lifetime, so only these groups use them.
+ * The commands the server receives back from the multicast address are
+ * dropped.
+ * 
+ * A group which is not configured is removed, when it had no observers and
+ * no requests for {@link ServerConfig#ACTUATOR_GROUP_IDLE_TIMEOUT}.
+ * 
+ * A GET on the resource itself returns the statistics of the groups.
+ */
+public class ActuatorGroupResource extends CoapResource {
+
+    private static final int MAX_GROUPS = 64;
+    private static final Pattern NAME = Pattern.compile("[A-Za-z0-9_-]{1,32}");
+
+    private SharedData sharedData;
+    private Random random = new Random();
+    private AtomicLong encodes = new AtomicLong();
+    private final long idleTimeoutNanos;
+
+    private volatile Endpoint multicastEndpoint;
+    private volatile InetSocketAddress multicastGroup;
+
+    /**
+     * Constructor for ActuatorGroupResource.
+     * 
+     * @param sharedData the shared data
+     * @param config the configuration with the configured groups
+     */
+    public ActuatorGroupResource(SharedData sharedData, Configuration config) {
+        super("actuatorgroup");
+        this.sharedData = sharedData;
+        this.idleTimeoutNanos = config.get(ServerConfig.ACTUATOR_GROUP_IDLE_TIMEOUT, TimeUnit.NANOSECONDS);
+        getAttributes().setTitle("Actuator Group Resource");
+        for (String name : ServerConfig.getList(config, ServerConfig.ACTUATOR_GROUPS)) {
+            if (getChildren().size() < MAX_GROUPS && NAME.matcher(name).matches()) {
+                Group group = new Group(name, true);
+                add(group);
+                group.schedule();
+            } else {
+                ServerLog.info("Invalid actuator group " + name);
+            }
+        }
+    }
+
+    /**
+     * Send the group commands also to a multicast address.
+     * 
+     * The commands received back from the multicast address are dropped by
+     * an interceptor of the endpoint.
+     * 
+     * @param endpoint the UDP endpoint to send the commands
+     * @param group the multicast address and port of the stations
+     */
+    public void setMulticast(Endpoint endpoint, InetSocketAddress group) {
+        endpoint.addInterceptor(new OwnCommandFilter(endpoint.getAddress().getPort()));
+        this.multicastGroup = group;
+        this.multicastEndpoint = endpoint;
+    }
+
+    /**
+     * Get a group, create it with the first request.
+     * 
+     * @param name the name of the group
+     * @return the group, or {@code null} if the name is invalid or there are
+     *         too many groups
+     */
+    @Override
+    public synchronized Resource getChild(String name) {
+        Resource child = super.getChild(name);
+        if (child == null && getChildren().size() < MAX_GROUPS && NAME.matcher(name).matches()) {
+            Group group = new Group(name, false);
+            add(group);
+            group.schedule();
+            ServerLog.info("Created actuator group " + name);
+            child = group;
+        }
+        return child;
+    }
+
+    /**
+     * Remove a group, if it is still unused.
+     * 
+     * @param group the group
+     * @return {@code true} if the group was removed
+     */
+    private synchronized boolean expire(Group group) {
+        if (group.getObserverCount() > 0) {
+            return false;
+        }
+        delete(group);
+        ServerLog.info("Removed idle actuator group " + group.getName());
+        return true;
+    }
+
+    /**
+     * Handle GET requests.
+     * 
+     * Returns one line per group with the name, the observers, the last
+     * actuator value, the notifications and the multicast commands sent,
+     * followed by the number of groups and the encoded payloads.
+     * 
+     * @param exchange the exchange
+     */
+    @Override
+    public void handleGET(CoapExchange exchange) {
+        ServerLog.info("Received GET, Resource: actuatorgroup");
+        StringBuilder stats = new StringBuilder();
+        stats.append("group;observers;value;notifications;multicast\n");
+        for (Resource child : getChildren()) {
+            Group group = (Group) child;
+            stats.append(group.getName()).append(";");
+            stats.append(group.getObserverCount()).append(";");
+            stats.append(group.value).append(";");
+            stats.append(group.notifications).append(";");
+            stats.append(group.multicasts).append("\n");
+        }
+        stats.append("groups;").append(getChildren().size()).append("\n");
+        stats.append("encodes;").append(encodes.get());
+        exchange.respond(ResponseCode.CONTENT, stats.toString());
+        ServerLog.info("Sent Response, Resource: actuatorgroup");
+    }
+
+    /**
+     * Actuator group, observed by its stations.
+     */
+    private class Group extends CoapResource {
+
+        // only the clock's scheduler writes the value and the counters
+        private volatile int value;
+        private volatile long notifications;
+        private volatile long multicasts;
+        private volatile byte[] payload = encode(0, false);
+        private final boolean configured;
+        private volatile long lastUsed = sharedData.clock.nanoTime();
+
+        private Group(String name, boolean configured) {
+            super(name);
+            this.configured = configured;
+            setObservable(true);
+            getAttributes().setObservable();
+            getAttributes().setTitle("Actuator Group " + name);
+        }
+
+        private void schedule() {
+            RuntimeSettings settings = sharedData.config.get();
+            int min = settings.actuatorMinInterval;
+            int max = Math.max(min, settings.actuatorMaxInterval);
+            sharedData.clock.schedule(this::tick, random.nextInt(max - min + 1) + min, TimeUnit.SECONDS);
+        }
+
+        private void tick() {
+            int observers = getObserverCount();
+            if (observers > 0) {
+                lastUsed = sharedData.clock.nanoTime();
+            } else if (!configured && sharedData.clock.nanoTime() - lastUsed > idleTimeoutNanos && expire(this)) {
+                return;
+            }
+            // the multicast message IDs are scarce, only groups with members use them
+            Endpoint endpoint = observers > 0 || configured ? multicastEndpoint : null;
+            if (observers > 0 || endpoint != null) {
+                NotificationEvent event = new NotificationEvent();
+                event.begin();
+                // Encode once, the notifications of all observers share the payload
+                RuntimeSettings settings = sharedData.config.get();
+                byte[] encoded = encode(++value, settings.actuatorTimestamps);
+                payload = encoded;
+                encodes.incrementAndGet();
+                notifications += observers;
+                changed();
+                if (endpoint != null) {
+                    sendMulticast(endpoint, encoded);
+                    multicasts++;
+                }
+                if (event.shouldCommit()) {
+                    event.resource = "actuatorgroup/" + getName();
+                    event.value = value;
+                    event.observers = observers;
+                    event.payloadSize = encoded.length;
+                    event.confirmable = settings.actuatorConfirmable;
+                    event.multicast = endpoint != null;
+                    event.commit();
+                }
+                ServerLog.info("Sent Group notification, " +
+                               "Resource: actuatorgroup/" + getName() + ", " +
+                               "Observers: " + observers + ", " +
+                               "Payload: " + new String(encoded, StandardCharsets.UTF_8));
+            }
+            schedule();
+        }
+
+        private void sendMulticast(Endpoint endpoint, byte[] encoded) {
+            Request request = Request.newPut();
+            request.setType(Type.NON);
+            request.setDestinationContext(new AddressEndpointContext(multicastGroup));
+            request.getOptions().setUriPath("actuatorgroup/" + getName());
+            request.getOptions().setContentFormat(MediaTypeRegistry.APPLICATION_JSON);
+            request.getOptions().setNoResponse(NoResponseOption.SUPPRESS_ALL);
+            request.setPayload(encoded);
+            endpoint.sendRequest(request);
+        }
+
+        @Override
+        public void handleGET(CoapExchange exchange) {
+            lastUsed = sharedData.clock.nanoTime();
+            Response response = new Response(ResponseCode.CONTENT);
+            response.setPayload(payload);
+            response.getOptions().setContentFormat(MediaTypeRegistry.APPLICATION_JSON);
+            ObserveRelation relation = exchange.advanced().getRelation();
+            if (relation != null && relation.isEstablished()) {
+                response.setType(sharedData.config.get().actuatorConfirmable ? Type.CON : Type.NON);
+            } else {
+                ServerLog.info("Received GET, Resource: actuatorgroup/" + getName());
+            }
+            exchange.respond(response);
+        }
+    }
+
+    /**
+     * Drop the commands the server receives back from the multicast address.
+     */
+    private static class OwnCommandFilter extends MessageInterceptorAdapter {
+
+        private final int port;
+
+        private OwnCommandFilter(int port) {
+            this.port = port;
+        }
+
+        @Override
+        public void receiveRequest(Request request) {
+            if (request.isMulticast()) {
+                InetSocketAddress source = request.getSourceContext().getPeerAddress();
+                if (source.getPort() == port && isLocal(source.getAddress())) {
+                    request.cancel();
+                }
+            }
+        }
+
+        private static boolean isLocal(InetAddress address) {
+            if (address.isLoopbackAddress() || address.isAnyLocalAddress()) {
+                return true;
+            }
+            try {
+                return NetworkInterface.getByInetAddress(address) != null;
+            } catch (SocketException e) {
+                return false;
+            }
+        }
+    }
+
+    private byte[] encode(int value, boolean timestamp) {
+        String message = timestamp
+                ? String.format("{\"actuator-value\":%d,\"actuator-sent\":%d}", value, sharedData.clock.millis())
+                : String.format("{\"actuator-value\":%d}", value);
+        return message.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -22,8 +22,6 @@ import org.eclipse.californium.core.coap.Response;
 import org.eclipse.californium.core.server.resources.CoapExchange;
 
 import java.util.Random;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
 
@@ -33,19 +31,21 @@ import java.util.concurrent.TimeUnit;
  * The client can start and stop observing the actuator resource.
  * When observing, the actuator resource sends a notification with
  * a random interval. The min and max interval is sent with the
- * first GET request that starts the observe.
+ * first GET request that starts the observe, otherwise the configured
+ * interval is used.
+ * 
+ * The notifications are scheduled on the clock of the shared data.
  */
 
 public class ActuatorResource extends CoapResource {
 
     private SharedData sharedData;
-    private int delay = 5;
-    private int x = 5;
-    private int y = 10;
+    private int delay;
+    private int x = 0; // 0: use the configured min interval
+    private int y = 0; // 0: use the configured max interval
     private Random random = new Random();
-    private ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(1);
 
-    private int localCnt = 0;
+    private long observeEpoch;
 
     private CoapExchange exchange;
     private boolean isObserve = false;
@@ -70,7 +70,8 @@ public class ActuatorResource extends CoapResource {
      * Start the notifier that sends the observe notifications.
      */
     private void startNotifier() {
-        scheduler.schedule(new UpdateTask(), delay, TimeUnit.SECONDS);
+        delay = sharedData.config.get().actuatorMinInterval;
+        sharedData.clock.schedule(new UpdateTask(), delay, TimeUnit.SECONDS);
     }
 
     /**
@@ -79,13 +80,20 @@ public class ActuatorResource extends CoapResource {
     private class UpdateTask implements Runnable {
         @Override
         public void run() {
-            notifyObservers();
-            reschedule();
+            try {
+                notifyObservers();
+            } finally {
+                // a failed notification must not stop the following ones
+                reschedule();
+            }
         }
 
         private void reschedule() {
-            delay = random.nextInt(y - x + 1) + x;
-            scheduler.schedule(new UpdateTask(), delay, TimeUnit.SECONDS);
+            RuntimeSettings settings = sharedData.config.get();
+            int min = x > 0 ? x : settings.actuatorMinInterval;
+            int max = Math.max(min, y > 0 ? y : settings.actuatorMaxInterval);
+            delay = random.nextInt(max - min + 1) + min;
+            sharedData.clock.schedule(new UpdateTask(), delay, TimeUnit.SECONDS);
         }
     }
 
@@ -106,43 +114,40 @@ public class ActuatorResource extends CoapResource {
 
         // Start observing
         if(exchange.getRequestOptions().hasObserve() && exchange.getRequestOptions().getObserve() == 0) {
-            System.out.println(ServerTimestamp.getElapsedTime() + 
-                               "Received GET, " +
-                               "Resource: actuator, " +
-                               "Option: start observe, " +
-                               "Payload: " + new String(exchange.getRequestPayload()));
+            ServerLog.info("Received GET, " +
+                           "Resource: actuator, " +
+                           "Option: start observe, " +
+                           "Payload: " + new String(exchange.getRequestPayload()));
             isObserve = true;
-            localCnt = 0;
-            sharedData.globalCnt = 0;
+            observeEpoch = sharedData.counters.reset();
+            x = 0;
+            y = 0;
 
             String message = String.format("observe started");
             Response response = new Response(ResponseCode.CONTENT);
             response.setPayload(message);
             response.setType(Type.NON); // Set the response type to NON
             exchange.respond(response);
-            System.out.println(ServerTimestamp.getElapsedTime() + 
-                               "Sent response, " +
-                               "Resource: actuator, " +
-                               "Payload: " + message);
+            ServerLog.info("Sent response, " +
+                           "Resource: actuator, " +
+                           "Payload: " + message);
         }
 
         // Stop observing
         if(exchange.getRequestOptions().hasObserve() && exchange.getRequestOptions().getObserve() == 1) {
-            System.out.println(ServerTimestamp.getElapsedTime() + 
-                               "Received GET, " +
-                               "Resource: actuator, " +
-                               "Option: stop observe, " +
-                               "Payload: " + new String(exchange.getRequestPayload()));
+            ServerLog.info("Received GET, " +
+                           "Resource: actuator, " +
+                           "Option: stop observe, " +
+                           "Payload: " + new String(exchange.getRequestPayload()));
             isObserve = false;
             String message = String.format("observe stopped");
             Response response = new Response(ResponseCode.CONTENT);
             response.setPayload(message);
             response.setType(Type.NON); // Set the response type to NON
             exchange.respond(response);
-            System.out.println(ServerTimestamp.getElapsedTime() + 
-                               "Sent response, " +
-                               "Resource: actuator, " +
-                               "Payload: " + message);
+            ServerLog.info("Sent response, " +
+                           "Resource: actuator, " +
+                           "Payload: " + message);
         }
 
         // Get the min and max interval
@@ -154,10 +159,10 @@ public class ActuatorResource extends CoapResource {
                     x = Integer.parseInt(parts[1]);
                     y = Integer.parseInt(parts[2]);
                 } else {
-                    System.out.println("Invalid payload format");
+                    ServerLog.info("Invalid payload format");
                 }
             } catch (NumberFormatException | IndexOutOfBoundsException e) {
-                System.out.println("Invalid payload format");
+                ServerLog.info("Invalid payload format");
             }
         }
     }
@@ -183,26 +188,38 @@ public class ActuatorResource extends CoapResource {
     private void notifyObservers() {
         
         //detect if the client disconnected without stopping the observe
-        if(sharedData.globalCnt == 0 && localCnt != 0){ //if the client disconnected without stopping the observe
-            isObserve = false;                          //global cnt will be updated at reconnection               
-            localCnt = 0;
-            sharedData.globalCnt = 0;
+        if(isObserve && sharedData.counters.epoch() != observeEpoch){ //the counters were reset by a new test,
+            isObserve = false;                                        //they will be updated at reconnection
         }
 
         // Send the observe notification
         if(isObserve) {
-            String message = String.format("{\"actuator-value\":%d}", sharedData.globalCnt);
+            // only this task increments the actuator counter, so it can be used as sequence number
+            int value = (int) sharedData.counters.get("actuator");
+            RuntimeSettings settings = sharedData.config.get();
+            long sentTime = sharedData.clock.millis();
+            String message = settings.actuatorTimestamps
+                    ? String.format("{\"actuator-value\":%d,\"actuator-sent\":%d}", value, sentTime)
+                    : String.format("{\"actuator-value\":%d}", value);
+            NotificationEvent event = new NotificationEvent();
+            event.begin();
             Response response = new Response(ResponseCode.CONTENT);
             response.setPayload(message);
-            response.setType(Type.NON); // Set the response type to NON
+            response.setType(settings.actuatorConfirmable ? Type.CON : Type.NON);
             exchange.respond(response);
-            this.sharedData.actuatorStatistics.sent(sharedData.globalCnt);
-            sharedData.globalCnt++;
-            localCnt++;
-            System.out.println(ServerTimestamp.getElapsedTime() + 
-                               "Sent Observe notification, " +
-                               "Resource: actuator, " +
-                               "Payload: " + message);
+            if (event.shouldCommit()) {
+                event.resource = "actuator";
+                event.value = value;
+                event.observers = 1;
+                event.payloadSize = response.getPayloadSize();
+                event.confirmable = settings.actuatorConfirmable;
+                event.commit();
+            }
+            this.sharedData.actuatorStatistics.sent(value, sentTime);
+            sharedData.counters.increment("actuator");
+            ServerLog.info("Sent Observe notification, " +
+                           "Resource: actuator, " +
+                           "Payload: " + message);
         }
     }
 }
\ No newline at end of file
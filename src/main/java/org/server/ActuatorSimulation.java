@@ -0,0 +1,230 @@
+/********************************************************************************
+ * Copyright (c) 12-20-2024 Contributors to the Eclipse Foundation
+ * 
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ * 
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0, or the Eclipse Distribution License
+ * v1.0 which is available at
+ * https://www.eclipse.org/org/documents/edl-v10.php.
+ * 
+ * SPDX-License-Identifier: EPL-2.0 OR BSD-3-Clause
+ ********************************************************************************/
+
+package org.server;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.californium.core.coap.Request;
+import org.eclipse.californium.core.coap.Response;
+import org.eclipse.californium.core.network.Exchange;
+import org.eclipse.californium.core.network.Exchange.Origin;
+import org.eclipse.californium.core.server.resources.CoapExchange;
+import org.eclipse.californium.elements.AddressEndpointContext;
+import org.eclipse.californium.elements.config.Configuration;
+import org.json.JSONObject;
+
+/**
+ * Accelerated simulation of long actuator runs.
+ * 
+ * The simulation drives the actuator resources from a {@link VirtualClock}.
+ * Every station gets its own {@link SharedData}, {@link ActuatorResource}
+ * and {@link ActuatorEchoResource}, as on a server of the testbed, and an
+ * in-process client, which observes the actuator and echoes every
+ * notification. The exchanges are passed in memory, without endpoints. The
+ * notifications and the echoes are lost with a probability and delayed by a
+ * one-way latency, uniformly distributed between half and one and a half
+ * times the configured latency.
+ * 
+ * The actuator intervals, the timeouts of the statistics and the latencies
+ * all run in virtual time, so days of actuator traffic are only limited by
+ * the CPU time of the notifications and the statistics. The output reports
+ * the virtual and the real duration, the tasks run by the clock and the
+ * merged actuator statistics of all stations.
+ * 
+ * Run it with:
+ * 
+ * <pre>
+ * java -cp twt-testbed-server.jar org.server.ActuatorSimulation [stations] [hours] [loss] [latency_ms] [KEY=value...]
+ * </pre>
+ * 
+ * Arguments "KEY=value" override the configuration file, for example
+ * TWT.ACTUATOR_MIN_INTERVAL or TWT.ACTUATOR_TIMESTAMPS. The request log is
+ * quiet, unless TWT.LOG_LEVEL is given.
+ */
+public class ActuatorSimulation {
+
+    private final VirtualClock clock;
+    private final Random random = new Random(1);
+    private final double loss;
+    private final long latencyMs;
+
+    private ActuatorSimulation(VirtualClock clock, double loss, long latencyMs) {
+        this.clock = clock;
+        this.loss = loss;
+        this.latencyMs = latencyMs;
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<String> positional = new ArrayList<>();
+        List<String> overrides = new ArrayList<>();
+        overrides.add(ServerConfig.LOG_LEVEL.getKey() + "=" + ServerLog.Level.QUIET.name());
+        for (String arg : args) {
+            (arg.indexOf('=') > 0 ? overrides : positional).add(arg);
+        }
+        int stations = positional.size() > 0 ? Integer.parseInt(positional.get(0)) : 100;
+        double hours = positional.size() > 1 ? Double.parseDouble(positional.get(1)) : 24;
+        double loss = positional.size() > 2 ? Double.parseDouble(positional.get(2)) : 0.01;
+        long latencyMs = positional.size() > 3 ? Long.parseLong(positional.get(3)) : 200;
+
+        Configuration configuration = Main.loadConfiguration(overrides.toArray(new String[0]));
+        VirtualClock clock = new VirtualClock();
+        ServerTimestamp.setClock(clock);
+        ActuatorSimulation simulation = new ActuatorSimulation(clock, loss, latencyMs);
+
+        long start = System.nanoTime();
+        List<Station> all = new ArrayList<>();
+        for (int index = 0; index < stations; index++) {
+            Station station = simulation.new Station(index, new SharedData(configuration, clock));
+            station.observe(0);
+            all.add(station);
+        }
+        long duration = (long) (hours * TimeUnit.HOURS.toMillis(1));
+        clock.advance(duration, TimeUnit.MILLISECONDS);
+        for (Station station : all) {
+            station.observe(1);
+        }
+        // let the echoes in flight arrive
+        clock.advance(4 * latencyMs, TimeUnit.MILLISECONDS);
+        long wallMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        long notifications = 0;
+        long echoes = 0;
+        List<String> stats = new ArrayList<>();
+        for (Station station : all) {
+            notifications += station.notifications;
+            echoes += station.echoes;
+            stats.add(station.sharedData.actuatorStatistics.getStats());
+        }
+        System.out.println("stations;" + stations);
+        System.out.println("loss;" + loss);
+        System.out.println("latency_ms;" + latencyMs);
+        System.out.println("simulated_s;" + TimeUnit.MILLISECONDS.toSeconds(clock.millis()));
+        System.out.println("wall_ms;" + wallMs);
+        System.out.println("speedup;" + String.format("%.0f", clock.millis() / (double) Math.max(1, wallMs)));
+        System.out.println("tasks;" + clock.executed());
+        System.out.println("tasks_per_sec;" + String.format("%.0f", clock.executed() * 1000.0 / Math.max(1, wallMs)));
+        System.out.println("notifications;" + notifications);
+        System.out.println("echoes;" + echoes);
+        System.out.println(ClusterNode.mergeActuatorStats(stats));
+    }
+
+    private boolean lost() {
+        return random.nextDouble() < loss;
+    }
+
+    private long oneWayDelay() {
+        return latencyMs / 2 + (long) (random.nextDouble() * latencyMs);
+    }
+
+    /**
+     * In-process station, which observes its actuator and echoes the
+     * notifications.
+     */
+    private class Station {
+
+        private final SharedData sharedData;
+        private final ActuatorResource actuator;
+        private final ActuatorEchoResource echo;
+        private final InetSocketAddress address;
+        private long notifications;
+        private long echoes;
+
+        private Station(int index, SharedData sharedData) throws UnknownHostException {
+            this.sharedData = sharedData;
+            this.actuator = new ActuatorResource(sharedData);
+            this.echo = new ActuatorEchoResource(sharedData);
+            this.address = new InetSocketAddress(InetAddress.getByAddress(new byte[] { 10,
+                    (byte) (index >> 16), (byte) (index >> 8), (byte) index }), 5683);
+        }
+
+        /**
+         * Start or stop observing the actuator.
+         * 
+         * @param observe 0 to start, 1 to stop
+         */
+        private void observe(int observe) {
+            Request request = Request.newGet();
+            request.getOptions().setObserve(observe);
+            actuator.handleGET(new StationExchange(request));
+        }
+
+        /**
+         * Receive a response of the actuator, after the downlink latency.
+         * 
+         * @param response the response or notification
+         */
+        private void notified(Response response) {
+            String payload = response.getPayloadString();
+            if (!payload.startsWith("{")) {
+                // observe started or stopped
+                return;
+            }
+            notifications++;
+            if (!lost()) {
+                clock.schedule(() -> received(payload), oneWayDelay(), TimeUnit.MILLISECONDS);
+            }
+        }
+
+        /**
+         * Echo a received notification, after the uplink latency.
+         * 
+         * @param payload the payload of the notification
+         */
+        private void received(String payload) {
+            JSONObject data = new JSONObject(payload);
+            JSONObject message = new JSONObject();
+            message.put("actuator-echo", data.getInt("actuator-value"));
+            if (data.has("actuator-sent")) {
+                // the station clock is exactly synchronized
+                message.put("actuator-received", clock.millis());
+            }
+            if (!lost()) {
+                Request request = Request.newPut();
+                request.setPayload(message.toString());
+                clock.schedule(() -> {
+                    echoes++;
+                    echo.handlePUT(new StationExchange(request));
+                }, oneWayDelay(), TimeUnit.MILLISECONDS);
+            }
+        }
+
+        /**
+         * Exchange of a station, passes the responses back to it.
+         */
+        private class StationExchange extends CoapExchange {
+
+            private StationExchange(Request request) {
+                super(exchange(request));
+            }
+
+            @Override
+            public void respond(Response response) {
+                notified(response);
+            }
+        }
+
+        private Exchange exchange(Request request) {
+            request.setSourceContext(new AddressEndpointContext(address));
+            return new Exchange(request, address, Origin.REMOTE, null);
+        }
+    }
+}
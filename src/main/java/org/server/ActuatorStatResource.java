@@ -15,17 +15,13 @@
 
 package org.server;
 
-import org.eclipse.californium.core.CoapResource;
-import org.eclipse.californium.core.coap.CoAP.ResponseCode;
-import org.eclipse.californium.core.server.resources.CoapExchange;
-
-
 /**
  * ActuatorStatResource is a CoAP resource that provides the statistics of the actuator.
  * 
  * This resource is used by the client to retreive the statistics of the actuator test.
+ * Observers follow the test live with the changed statistics.
  */
-public class ActuatorStatResource extends CoapResource {
+public class ActuatorStatResource extends ObservableStatResource {
 
     private SharedData sharedData;
 
@@ -36,28 +32,29 @@ public class ActuatorStatResource extends CoapResource {
      */
     public ActuatorStatResource(SharedData sharedData) {
         // Set resource identifier
-        super("actuatorstat");
+        super("actuatorstat", "Actuator Stat Resource", sharedData);
         this.sharedData = sharedData;
-        // Set display name
-        getAttributes().setTitle("Actuator Stat Resource");
     }
 
     /**
-     * Handle GET requests.
+     * Get the actuator statistics.
      * 
-     * @param exchange CoapExchange object that contains the request and response.
+     * @return the actuator statistics
      */
     @Override
-    public void handleGET(CoapExchange exchange) {
-
-        // Log the request
-        System.out.println(ServerTimestamp.getElapsedTime()+"Received GET, Resource: actuatorstat");
-
-        // Get the actuator statistics
-        String stats = sharedData.actuatorStatistics.getStats();
+    protected String snapshot() {
+        return sharedData.cluster.actuatorStat();
+    }
 
-        // Send the response
-        exchange.respond(ResponseCode.CONTENT, stats);
-        System.out.println(ServerTimestamp.getElapsedTime()+"Sent Response, Resource: actuatorstat");
+    /**
+     * Get the version of the actuator statistics.
+     * 
+     * The statistics of other cluster nodes can not be versioned.
+     * 
+     * @return the version of the actuator statistics
+     */
+    @Override
+    protected long version() {
+        return sharedData.cluster.isEnabled() ? UNKNOWN_VERSION : sharedData.actuatorStatistics.version();
     }
-}
\ No newline at end of file
+}
@@ -17,72 +17,174 @@ package org.server;
 
 import java.util.HashMap;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * This class is used to store statistics for an actuator test.
  * It keeps track of the number of sent and received messages,
  * the number of lost messages, the latency of received messages,
  * and the distribution of latencies.
+ * 
+ * The sent messages are tracked by a {@link SequenceTracker}, which
+ * additionally reports duplicates, out-of-order and late echoes and
+ * the distribution of consecutive loss bursts.
+ * 
+ * If the echoes carry the receive time of the notification in server time
+ * (see {@link ClockSyncResource}), the round trip is split into the downlink
+ * latency, from sending the notification to its reception by the station,
+ * and the uplink latency, from the reception to the arrival of the echo.
+ * All times are taken from the monotonic server clock, see {@link ServerClock}.
+ * 
+ * The operations which change or read the statistics are recorded as
+ * {@link ActuatorStatisticsEvent} by the flight recorder, with the time
+ * the lock is held and the number of pending messages.
  */
 public class ActuatorStatistics {
-    private Map<Integer, Long> pendingMessages = new ConcurrentHashMap<>();
+    private SequenceTracker tracker = new SequenceTracker();
     private Map<Integer, Integer> histogram = new HashMap<>();
     private int sentCnt;
     private int receivedCnt;
-    private int timeout = 300; // in seconds
     private long latencySumMs = 0; // Sum of latencies in milliseconds
+    private Map<Integer, Integer> downlinkHistogram = new HashMap<>();
+    private Map<Integer, Integer> uplinkHistogram = new HashMap<>();
+    private int oneWayCnt;
+    private long downlinkSumMs;
+    private long uplinkSumMs;
+    private long version;
+    private RuntimeConfig config;
+    private ServerClock clock;
 
     /**
-     * Clear timed out messages from the pending messages map.
+     * Constructor for ActuatorStatistics.
+     * 
+     * @param config the runtime configuration, provides the timeout
+     * @param clock the monotonic server clock
+     */
+    public ActuatorStatistics(RuntimeConfig config, ServerClock clock) {
+        this.config = config;
+        this.clock = clock;
+    }
+
+    /**
+     * Clear timed out messages from the pending messages.
      */
     public synchronized void clearTimedOutMessages() {
-        long currentTime = System.currentTimeMillis() / 1000L;
-        pendingMessages.entrySet().removeIf(entry -> {
-            if (currentTime - entry.getValue() > timeout) {
-                return true;
-            }
-            return false;
-        });
+        tracker.expire(clock.millis(), config.get().actuatorTimeoutMs);
+    }
+
+    /**
+     * Add a sent message to the pending messages.
+     * 
+     * @param messageId the message ID
+     */
+    public void sent(int messageId) {
+        sent(messageId, clock.millis());
+    }
+
+    /**
+     * Add a sent message to the pending messages.
+     * 
+     * @param messageId the message ID
+     * @param sentTime the send time in milliseconds of the monotonic server
+     *            clock, as sent to the station
+     */
+    public void sent(int messageId, long sentTime) {
+        ActuatorStatisticsEvent event = new ActuatorStatisticsEvent();
+        event.requested();
+        synchronized (this) {
+            event.acquired();
+            version++;
+            clearTimedOutMessages();
+            sentCnt++;
+            tracker.sent(messageId, sentTime);
+            event.commit("sent", tracker.pending());
+        }
     }
 
+
     /**
-     * Add a sent message to the pending messages map.
+     * Add a received message to the statistics.
+     * 
+     * Duplicated, late and unknown echoes are counted by the tracker
+     * but not added to the latency statistics.
      * 
      * @param messageId the message ID
      */
-    public synchronized void sent(int messageId) {
-        clearTimedOutMessages();
-        sentCnt++;
-        pendingMessages.put(messageId, System.currentTimeMillis());
+    public void received(int messageId) {
+        received(messageId, -1);
     }
-    
+
     /**
      * Add a received message to the statistics.
      * 
      * @param messageId the message ID
+     * @param stationTime the time the station received the notification, in
+     *            milliseconds of the monotonic server clock, or -1 if unknown
      */
-    public synchronized void received(int messageId) {
-        clearTimedOutMessages();
-        if (pendingMessages.containsKey(messageId)) {
-            long sentTime = pendingMessages.remove(messageId);
-            long latencyMs = System.currentTimeMillis() - sentTime;
-            int latencySeconds = (int) (latencyMs / 1000);
-            histogram.put(latencySeconds, histogram.getOrDefault(latencySeconds, 0) + 1);
-            latencySumMs += latencyMs;
-            receivedCnt++;
+    public void received(int messageId, long stationTime) {
+        ActuatorStatisticsEvent event = new ActuatorStatisticsEvent();
+        event.requested();
+        synchronized (this) {
+            event.acquired();
+            version++;
+            clearTimedOutMessages();
+            if (tracker.received(messageId) == SequenceTracker.Result.ACCEPTED) {
+                long now = clock.millis();
+                long sentTime = tracker.sentTime(messageId);
+                long latencyMs = now - sentTime;
+                add(histogram, latencyMs);
+                latencySumMs += latencyMs;
+                receivedCnt++;
+                if (stationTime >= 0) {
+                    // clock offset errors may push the station time out of the round trip
+                    long downlinkMs = Math.min(latencyMs, Math.max(0, stationTime - sentTime));
+                    add(downlinkHistogram, downlinkMs);
+                    add(uplinkHistogram, latencyMs - downlinkMs);
+                    downlinkSumMs += downlinkMs;
+                    uplinkSumMs += latencyMs - downlinkMs;
+                    oneWayCnt++;
+                }
+            }
+            event.commit("received", tracker.pending());
         }
     }
 
+    private static void add(Map<Integer, Integer> histogram, long latencyMs) {
+        int latencySeconds = (int) (latencyMs / 1000);
+        histogram.put(latencySeconds, histogram.getOrDefault(latencySeconds, 0) + 1);
+    }
+
     /**
      * Clear all statistics.
      */
-    public synchronized void clear() {
-        pendingMessages.clear();
-        histogram.clear();
-        sentCnt = 0;
-        receivedCnt = 0;
-        latencySumMs = 0;
+    public void clear() {
+        ActuatorStatisticsEvent event = new ActuatorStatisticsEvent();
+        event.requested();
+        synchronized (this) {
+            event.acquired();
+            version++;
+            tracker.clear();
+            histogram.clear();
+            sentCnt = 0;
+            receivedCnt = 0;
+            latencySumMs = 0;
+            downlinkHistogram.clear();
+            uplinkHistogram.clear();
+            oneWayCnt = 0;
+            downlinkSumMs = 0;
+            uplinkSumMs = 0;
+            event.commit("clear", tracker.pending());
+        }
+    }
+
+    /**
+     * Get the version of the statistics.
+     * 
+     * The version changes whenever the statistics change.
+     * 
+     * @return the version
+     */
+    public synchronized long version() {
+        return version;
     }
 
     /**
@@ -101,15 +203,48 @@ public class ActuatorStatistics {
     /**
      * Get the statistics as a string.
      * 
+     * The one-way latencies follow the round trip statistics, if any echo
+     * carried the station receive time.
+     * 
      * @return the statistics as a string
      */
-    public synchronized String getStats() {
-        StringBuilder stats = new StringBuilder();
+    public String getStats() {
+        ActuatorStatisticsEvent event = new ActuatorStatisticsEvent();
+        event.requested();
+        synchronized (this) {
+            event.acquired();
+            StringBuilder stats = new StringBuilder();
+            histogram.entrySet().stream()
+                    .sorted(Map.Entry.comparingByKey())
+                    .forEach(entry -> stats.append(entry.getKey()).append(";").append(entry.getValue()).append("\n"));
+            stats.append("lost;").append(sentCnt-receivedCnt).append("\n");
+            stats.append("average_ms;").append(averageLatency()).append("\n");
+            stats.append("duplicates;").append(tracker.duplicates()).append("\n");
+            stats.append("reordered;").append(tracker.reordered()).append("\n");
+            stats.append("late;").append(tracker.late()).append("\n");
+            stats.append("unknown;").append(tracker.unknown());
+            int[] bursts = tracker.bursts();
+            for (int i = 0; i < bursts.length; i++) {
+                if (bursts[i] > 0) {
+                    stats.append("\nburst_").append(i + 1).append(i == bursts.length - 1 ? "+" : "")
+                            .append(";").append(bursts[i]);
+                }
+            }
+            if (oneWayCnt > 0) {
+                appendHistogram(stats, "downlink_", downlinkHistogram);
+                appendHistogram(stats, "uplink_", uplinkHistogram);
+                stats.append("\ndownlink_average_ms;").append(downlinkSumMs / oneWayCnt);
+                stats.append("\nuplink_average_ms;").append(uplinkSumMs / oneWayCnt);
+                stats.append("\none_way;").append(oneWayCnt);
+            }
+            event.commit("stats", tracker.pending());
+            return stats.toString();
+        }
+    }
+
+    private static void appendHistogram(StringBuilder stats, String prefix, Map<Integer, Integer> histogram) {
         histogram.entrySet().stream()
                 .sorted(Map.Entry.comparingByKey())
-                .forEach(entry -> stats.append(entry.getKey()).append(";").append(entry.getValue()).append("\n"));
-        stats.append("lost;").append(sentCnt-receivedCnt).append("\n");
-        stats.append("average_ms;").append(averageLatency());
-        return stats.toString();
+                .forEach(entry -> stats.append("\n").append(prefix).append(entry.getKey()).append(";").append(entry.getValue()));
     }
 }
\ No newline at end of file
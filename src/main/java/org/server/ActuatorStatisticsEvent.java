@@ -0,0 +1,84 @@
+/********************************************************************************
+ * Copyright (c) 12-20-2024 Contributors to the Eclipse Foundation
+ * 
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ * 
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0, or the Eclipse Distribution License
+ * v1.0 which is available at
+ * https://www.eclipse.org/org/documents/edl-v10.php.
+ * 
+ * SPDX-License-Identifier: EPL-2.0 OR BSD-3-Clause
+ ********************************************************************************/
+
+package org.server;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight recorder event of an operation on the {@link ActuatorStatistics}.
+ * 
+ * The duration of the event is the time the lock is held, the lock wait is
+ * the time until the lock was acquired.
+ */
+@Name("org.server.ActuatorStatistics")
+@Label("Actuator Statistics")
+@Category("TWT Testbed")
+@Description("Operation on the actuator statistics")
+@StackTrace(false)
+public class ActuatorStatisticsEvent extends Event {
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Lock Wait")
+    @Timespan(Timespan.NANOSECONDS)
+    long lockWait;
+
+    @Label("Pending Messages")
+    int pending;
+
+    // not recorded
+    private transient long requested;
+
+    /**
+     * Mark the time the lock is requested.
+     */
+    void requested() {
+        if (isEnabled()) {
+            requested = System.nanoTime();
+        }
+    }
+
+    /**
+     * Mark the time the lock is acquired and begin the event.
+     */
+    void acquired() {
+        if (isEnabled()) {
+            lockWait = System.nanoTime() - requested;
+            begin();
+        }
+    }
+
+    /**
+     * Commit the event, before the lock is released.
+     * 
+     * @param operation the name of the operation
+     * @param pending the number of pending messages
+     */
+    void commit(String operation, int pending) {
+        if (shouldCommit()) {
+            this.operation = operation;
+            this.pending = pending;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,164 @@
+/********************************************************************************
+ * Copyright (c) 12-20-2024 Contributors to the Eclipse Foundation
+ * 
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ * 
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0, or the Eclipse Distribution License
+ * v1.0 which is available at
+ * https://www.eclipse.org/org/documents/edl-v10.php.
+ * 
+ * SPDX-License-Identifier: EPL-2.0 OR BSD-3-Clause
+ ********************************************************************************/
+
+package org.server;
+
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.californium.core.coap.CoAP.ResponseCode;
+import org.eclipse.californium.core.coap.Request;
+import org.eclipse.californium.core.coap.Response;
+import org.eclipse.californium.core.network.Exchange;
+import org.eclipse.californium.core.server.DelivererException;
+import org.eclipse.californium.core.server.ServerMessageDeliverer;
+import org.eclipse.californium.core.server.resources.Resource;
+import org.eclipse.californium.elements.config.Configuration;
+import org.eclipse.californium.elements.util.ClockUtil;
+
+/**
+ * Message deliverer that applies admission control before the resource
+ * handlers run.
+ * 
+ * Requests for resources limited by the {@link TokenBucketLimiter} are
+ * rejected with 5.03 Service Unavailable and a Max-Age option telling the
+ * client when to retry, once the token bucket of the client is empty.
+ * 
+ * All other requests pass the {@link ConcurrencyLimiter}. Admitted requests
+ * are dispatched by this deliverer, so the service time can be measured when
+ * the handler returns; excess requests are shed with 5.03 immediately. The
+ * service time excludes the wait in the executor queue and the
+ * {@link SimulatedLatency}, so the limit only shrinks when the server itself
+ * is slow.
+ * Each dispatch is recorded as {@link ExchangeEvent} by the flight recorder.
+ */
+public class AdmissionControlDeliverer extends ServerMessageDeliverer {
+
+    private SharedData sharedData;
+
+    /**
+     * Constructor for AdmissionControlDeliverer.
+     * 
+     * @param root the root resource of the server
+     * @param config the configuration
+     * @param sharedData SharedData object that contains the limiters
+     */
+    public AdmissionControlDeliverer(Resource root, Configuration config, SharedData sharedData) {
+        super(root, config);
+        this.sharedData = sharedData;
+    }
+
+    /**
+     * Apply the admission control and dispatch the admitted requests.
+     * 
+     * @param exchange the exchange
+     * @return always true, the request is either rejected or delivered
+     */
+    @Override
+    protected boolean preDeliverRequest(final Exchange exchange) {
+        final Request request = exchange.getRequest();
+        List<String> path = request.getOptions().getUriPath();
+        String name = path.isEmpty() ? "" : path.get(0);
+
+        // Per client token buckets
+        int index = path.size() == 1 ? sharedData.throttling.indexOf(name) : -1;
+        if (index >= 0) {
+            InetSocketAddress peer = request.getSourceContext().getPeerAddress();
+            long retryAfter = sharedData.throttling.tryAcquire(peer, index);
+            if (retryAfter > 0) {
+                reject(exchange, name, retryAfter);
+                return true;
+            }
+        }
+
+        // Server wide concurrency limit
+        if (!sharedData.concurrency.tryAcquire(sharedData.concurrency.priorityOf(name))) {
+            reject(exchange, name, 1);
+            return true;
+        }
+        // the exchange event covers the time since the reception
+        final long received = request.getNanoTimestamp() != 0 ? request.getNanoTimestamp() : ClockUtil.nanoRealtime();
+        long start = ClockUtil.nanoRealtime();
+        try {
+            final Resource resource = findResource(exchange);
+            if (resource == null) {
+                release(start);
+                exchange.sendResponse(new Response(ResponseCode.NOT_FOUND, true));
+                return true;
+            }
+            checkForObserveOption(exchange, resource);
+            Executor executor = resource.getExecutor();
+            if (executor != null) {
+                executor.execute(new Runnable() {
+
+                    @Override
+                    public void run() {
+                        handle(resource, exchange, received);
+                    }
+                });
+            } else {
+                handle(resource, exchange, received);
+            }
+        } catch (DelivererException ex) {
+            release(start);
+            Response response = new Response(ex.getErrorResponseCode(), ex.isInternal());
+            response.setPayload(ex.getMessage());
+            exchange.sendResponse(response);
+        } catch (RuntimeException ex) {
+            release(start);
+            throw ex;
+        }
+        return true;
+    }
+
+    private void handle(Resource resource, Exchange exchange, long received) {
+        ExchangeEvent event = new ExchangeEvent();
+        event.begin();
+        SimulatedLatency.takeDelay();
+        long start = ClockUtil.nanoRealtime();
+        try {
+            resource.handleRequest(exchange);
+        } finally {
+            long now = ClockUtil.nanoRealtime();
+            long delay = SimulatedLatency.takeDelay();
+            // the simulated latency is intended, it is not load of the server
+            sharedData.concurrency.release(Math.max(0, now - start - TimeUnit.MILLISECONDS.toNanos(delay)));
+            if (event.shouldCommit()) {
+                Request request = exchange.getRequest();
+                Response response = exchange.getResponse();
+                event.resource = request.getOptions().getUriPathString();
+                event.method = request.getCode().name();
+                event.payloadSize = request.getPayloadSize();
+                event.responseCode = response == null ? null : response.getCode().toString();
+                event.serviceTime = now - received;
+                event.simulatedDelay = delay;
+                event.commit();
+            }
+        }
+    }
+
+    private void release(long start) {
+        sharedData.concurrency.release(ClockUtil.nanoRealtime() - start);
+    }
+
+    private void reject(Exchange exchange, String name, long retryAfter) {
+        Response response = new Response(ResponseCode.SERVICE_UNAVAILABLE);
+        response.getOptions().setMaxAge(retryAfter);
+        exchange.sendResponse(response);
+        ServerLog.info("Sent 5.03, Resource: " + name + ", Max-Age: " + retryAfter);
+    }
+}
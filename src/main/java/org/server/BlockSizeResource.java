@@ -0,0 +1,61 @@
+/********************************************************************************
+ * Copyright (c) 12-20-2024 Contributors to the Eclipse Foundation
+ * 
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ * 
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0, or the Eclipse Distribution License
+ * v1.0 which is available at
+ * https://www.eclipse.org/org/documents/edl-v10.php.
+ * 
+ * SPDX-License-Identifier: EPL-2.0 OR BSD-3-Clause
+ ********************************************************************************/
+
+package org.server;
+
+import org.eclipse.californium.core.CoapResource;
+import org.eclipse.californium.core.coap.CoAP.ResponseCode;
+import org.eclipse.californium.core.server.resources.CoapExchange;
+
+
+/**
+ * BlockSizeResource is a CoAP resource that provides the adaptive block size statistics.
+ * 
+ * It reports the block size selected for each client, its retransmission rate and
+ * the goodput of its blockwise transfers, and how often the block sizes changed.
+ */
+public class BlockSizeResource extends CoapResource {
+
+    private SharedData sharedData;
+
+    /**
+     * Constructor for BlockSizeResource.
+     * 
+     * @param sharedData SharedData object that contains the block size selector.
+     */
+    public BlockSizeResource(SharedData sharedData) {
+        // Set resource identifier
+        super("blocksize");
+        this.sharedData = sharedData;
+        // Set display name
+        getAttributes().setTitle("Block Size Resource");
+    }
+
+    /**
+     * Handle GET requests.
+     * 
+     * @param exchange CoapExchange object that contains the request and response.
+     */
+    @Override
+    public void handleGET(CoapExchange exchange) {
+
+        // Log the request
+        ServerLog.info("Received GET, Resource: blocksize");
+
+        // Send the response
+        exchange.respond(ResponseCode.CONTENT, sharedData.blockSize.getStats());
+        ServerLog.info("Sent Response, Resource: blocksize");
+    }
+}
@@ -0,0 +1,360 @@
+/********************************************************************************
+ * Copyright (c) 12-20-2024 Contributors to the Eclipse Foundation
+ * 
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ * 
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0, or the Eclipse Distribution License
+ * v1.0 which is available at
+ * https://www.eclipse.org/org/documents/edl-v10.php.
+ * 
+ * SPDX-License-Identifier: EPL-2.0 OR BSD-3-Clause
+ ********************************************************************************/
+
+package org.server;
+
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.californium.core.coap.BlockOption;
+import org.eclipse.californium.core.coap.CoAP.Code;
+import org.eclipse.californium.core.coap.CoAP.ResponseCode;
+import org.eclipse.californium.core.coap.OptionSet;
+import org.eclipse.californium.core.coap.Request;
+import org.eclipse.californium.core.coap.Response;
+import org.eclipse.californium.core.config.CoapConfig;
+import org.eclipse.californium.core.network.interceptors.MessageInterceptorAdapter;
+import org.eclipse.californium.elements.config.Configuration;
+
+/**
+ * Per client block size selection for the blockwise transfers of the large
+ * packet resources.
+ * 
+ * The selector is added as interceptor to the UDP and DTLS endpoints. It
+ * counts the blocks each client sends to the large packet resources and
+ * detects retransmissions by their message ID. Every {@link #WINDOW} blocks
+ * the smoothed retransmission rate of the client is updated, and the block
+ * size is halved if it is above {@link #LOSS_HIGH} or doubled if it is below
+ * {@link #LOSS_LOW}, between the configured minimum and the preferred block
+ * size.
+ * 
+ * The selected size is applied by early negotiation: a Block2 option is
+ * added to the first request of a transfer before it reaches the blockwise
+ * layer, and the Block1 option of the first 2.31 Continue response is
+ * reduced, which asks the client to continue with smaller blocks (RFC 7959,
+ * section 2.3). Blocks which are already in flight are never changed.
+ * 
+ * Completed transfers are recorded as {@link BlockwiseTransferEvent} by the
+ * flight recorder.
+ */
+public class BlockSizeSelector extends MessageInterceptorAdapter {
+
+    private static final int WINDOW = 16;
+    private static final double LOSS_HIGH = 0.10;
+    private static final double LOSS_LOW = 0.02;
+    private static final int MID_HISTORY = 64;
+    private static final long IDLE_GAP_NANOS = TimeUnit.SECONDS.toNanos(2);
+    private static final long IDLE_TIMEOUT_MS = TimeUnit.MINUTES.toMillis(10);
+
+    private final Map<InetSocketAddress, Peer> peers = new ConcurrentHashMap<>();
+    private final List<String> resources;
+    private final int minSzx;
+    private final int maxSzx;
+    private final AtomicLong decreased = new AtomicLong();
+    private final AtomicLong increased = new AtomicLong();
+    private final AtomicLong nextSweep = new AtomicLong();
+
+    /**
+     * Create the block size selector from the configuration.
+     * 
+     * @param config the configuration
+     */
+    public BlockSizeSelector(Configuration config) {
+        this.resources = ServerConfig.getList(config, ServerConfig.BLOCKSIZE_RESOURCES);
+        this.maxSzx = BlockOption.size2Szx(config.get(CoapConfig.PREFERRED_BLOCK_SIZE));
+        this.minSzx = Math.min(maxSzx, BlockOption.size2Szx(config.get(ServerConfig.BLOCKSIZE_MIN)));
+    }
+
+    @Override
+    public void receiveRequest(Request request) {
+        if (!resources.contains(request.getOptions().getUriPathString())) {
+            return;
+        }
+        InetSocketAddress address = request.getSourceContext().getPeerAddress();
+        Peer peer = peer(address);
+        int szx = peer.received(request);
+        if (szx < 0) {
+            return;
+        }
+        if (peer.changed(szx)) {
+            ServerLog.info("Block size " + BlockOption.szx2Size(szx) + ", Client: " + address);
+        }
+
+        // Early negotiation of the response blocks, not while Block1 transfer is ongoing
+        OptionSet options = request.getOptions();
+        BlockOption block1 = options.getBlock1();
+        BlockOption block2 = options.getBlock2();
+        if ((block1 == null || !block1.isM())
+                && (block2 == null ? request.getCode() != Code.DELETE
+                        : block2.getNum() == 0 && block2.getSzx() > szx)) {
+            options.setBlock2(szx, false, 0);
+        }
+    }
+
+    @Override
+    public void sendResponse(Response response) {
+        Peer peer = peers.get(response.getDestinationContext().getPeerAddress());
+        if (peer == null) {
+            return;
+        }
+        OptionSet options = response.getOptions();
+        BlockOption block1 = options.getBlock1();
+        if (block1 != null && block1.isM() && block1.getNum() == 0 && response.getCode() == ResponseCode.CONTINUE) {
+            int szx = peer.szx();
+            if (block1.getSzx() > szx) {
+                // Ask the client to continue the upload with smaller blocks
+                options.setBlock1(szx, true, 0);
+            }
+        }
+        BlockOption block2 = options.getBlock2();
+        if (block2 != null) {
+            peer.sent(response);
+        }
+    }
+
+    /**
+     * Get the statistics as a string.
+     * 
+     * One line per client with the address, the selected block size, the
+     * smoothed retransmission rate in percent, the blocks, the
+     * retransmissions and the goodput of the blockwise transfers in bits
+     * per second.
+     * 
+     * @return the statistics as a string
+     */
+    public String getStats() {
+        StringBuilder stats = new StringBuilder();
+        stats.append("client;block_size;loss_percent;blocks;retransmissions;goodput_bps\n");
+        long bytes = 0;
+        long activeNanos = 0;
+        for (Map.Entry<InetSocketAddress, Peer> entry : peers.entrySet()) {
+            Peer peer = entry.getValue();
+            synchronized (peer) {
+                stats.append(entry.getKey()).append(";");
+                stats.append(BlockOption.szx2Size(peer.szx)).append(";");
+                stats.append(String.format("%.1f", peer.loss * 100)).append(";");
+                stats.append(peer.blocks).append(";");
+                stats.append(peer.retransmissions).append(";");
+                stats.append(goodput(peer.bytes, peer.activeNanos)).append("\n");
+                bytes += peer.bytes;
+                activeNanos += peer.activeNanos;
+            }
+        }
+        stats.append("clients;").append(peers.size()).append("\n");
+        stats.append("decreased;").append(decreased.get()).append("\n");
+        stats.append("increased;").append(increased.get()).append("\n");
+        stats.append("goodput_bps;").append(goodput(bytes, activeNanos));
+        return stats.toString();
+    }
+
+    private Peer peer(InetSocketAddress address) {
+        long now = TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+        long next = nextSweep.get();
+        if (now >= next && nextSweep.compareAndSet(next, now + IDLE_TIMEOUT_MS)) {
+            long idle = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(IDLE_TIMEOUT_MS);
+            peers.values().removeIf(peer -> peer.isIdle(idle));
+        }
+        return peers.computeIfAbsent(address, key -> new Peer(key, maxSzx));
+    }
+
+    private static long goodput(long bytes, long nanos) {
+        return nanos == 0 ? 0 : bytes * 8 * TimeUnit.SECONDS.toNanos(1) / nanos;
+    }
+
+    /**
+     * Blockwise transfer state of one client.
+     */
+    private class Peer {
+
+        private final InetSocketAddress address;
+        private final Transfer upload = new Transfer("upload");
+        private final Transfer download = new Transfer("download");
+        private final int[] mids = new int[MID_HISTORY];
+        private int midCount;
+        private int szx;
+        private int loggedSzx;
+        private double loss;
+        private int windowBlocks;
+        private int windowRetransmissions;
+        private long blocks;
+        private long retransmissions;
+        private long bytes;
+        private long activeNanos;
+        private long lastNanos;
+        private int lastResponseMid = -1;
+
+        private Peer(InetSocketAddress address, int szx) {
+            this.address = address;
+            this.szx = szx;
+            this.loggedSzx = szx;
+            this.lastNanos = System.nanoTime();
+        }
+
+        private synchronized int szx() {
+            return szx;
+        }
+
+        private synchronized boolean changed(int szx) {
+            if (loggedSzx == szx) {
+                return false;
+            }
+            loggedSzx = szx;
+            return true;
+        }
+
+        private synchronized boolean isIdle(long idle) {
+            return lastNanos - idle < 0;
+        }
+
+        /**
+         * Account a request to a large packet resource.
+         * 
+         * @return the block size exponent to use, or -1 if the request is a
+         *         retransmission
+         */
+        private synchronized int received(Request request) {
+            int mid = request.getMID();
+            boolean retransmission = false;
+            for (int index = 0; index < Math.min(midCount, MID_HISTORY); index++) {
+                if (mids[index] == mid) {
+                    retransmission = true;
+                    break;
+                }
+            }
+            BlockOption block1 = request.getOptions().getBlock1();
+            if (retransmission) {
+                retransmissions++;
+                windowRetransmissions++;
+                (block1 != null ? upload : download).retransmissions++;
+            } else {
+                mids[midCount++ % MID_HISTORY] = mid;
+                blocks++;
+                windowBlocks++;
+                if (block1 != null) {
+                    account(request.getPayloadSize());
+                    if (block1.getNum() == 0) {
+                        upload.start(request.getOptions().getUriPathString());
+                    }
+                    upload.block(request.getPayloadSize());
+                    if (!block1.isM()) {
+                        upload.complete(address, block1.getSize());
+                    }
+                } else {
+                    BlockOption block2 = request.getOptions().getBlock2();
+                    if (block2 == null || block2.getNum() == 0) {
+                        download.start(request.getOptions().getUriPathString());
+                    }
+                }
+            }
+            if (windowBlocks >= WINDOW) {
+                adapt();
+            }
+            return retransmission ? -1 : szx;
+        }
+
+        /**
+         * Account a response block.
+         */
+        private synchronized void sent(Response response) {
+            if (response.getMID() != lastResponseMid) {
+                lastResponseMid = response.getMID();
+                account(response.getPayloadSize());
+                BlockOption block2 = response.getOptions().getBlock2();
+                download.block(response.getPayloadSize());
+                if (!block2.isM()) {
+                    download.complete(address, block2.getSize());
+                }
+            }
+        }
+
+        private void account(int size) {
+            long now = System.nanoTime();
+            long gap = now - lastNanos;
+            if (gap < IDLE_GAP_NANOS) {
+                activeNanos += gap;
+            }
+            lastNanos = now;
+            bytes += size;
+        }
+
+        private void adapt() {
+            double windowLoss = (double) windowRetransmissions / (windowBlocks + windowRetransmissions);
+            loss = loss * 0.75 + windowLoss * 0.25;
+            windowBlocks = 0;
+            windowRetransmissions = 0;
+            if (loss > LOSS_HIGH && szx > minSzx) {
+                szx--;
+                decreased.incrementAndGet();
+            } else if (loss < LOSS_LOW && szx < maxSzx) {
+                szx++;
+                increased.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Blockwise transfer in one direction, for the flight recorder.
+     */
+    private static class Transfer {
+
+        private final String direction;
+        private String resource;
+        private long startNanos;
+        private int blocks;
+        private int retransmissions;
+        private long bytes;
+
+        private Transfer(String direction) {
+            this.direction = direction;
+        }
+
+        private void start(String resource) {
+            this.resource = resource;
+            startNanos = System.nanoTime();
+            blocks = 0;
+            retransmissions = 0;
+            bytes = 0;
+        }
+
+        private void block(int size) {
+            blocks++;
+            bytes += size;
+        }
+
+        private void complete(InetSocketAddress client, int blockSize) {
+            if (resource == null) {
+                // first block not seen
+                return;
+            }
+            BlockwiseTransferEvent event = new BlockwiseTransferEvent();
+            if (event.shouldCommit()) {
+                event.resource = resource;
+                event.client = client.toString();
+                event.direction = direction;
+                event.blockSize = blockSize;
+                event.blocks = blocks;
+                event.retransmissions = retransmissions;
+                event.bytes = bytes;
+                event.transferTime = System.nanoTime() - startNanos;
+                event.commit();
+            }
+            resource = null;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+/********************************************************************************
+ * Copyright (c) 12-20-2024 Contributors to the Eclipse Foundation
+ * 
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ * 
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0, or the Eclipse Distribution License
+ * v1.0 which is available at
+ * https://www.eclipse.org/org/documents/edl-v10.php.
+ * 
+ * SPDX-License-Identifier: EPL-2.0 OR BSD-3-Clause
+ ********************************************************************************/
+
+package org.server;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight recorder event of a completed blockwise transfer.
+ * 
+ * The event is committed with the last block, the transfer time starts with
+ * the first block.
+ * 
+ * @see BlockSizeSelector
+ */
+@Name("org.server.BlockwiseTransfer")
+@Label("Blockwise Transfer")
+@Category("TWT Testbed")
+@Description("Completed blockwise transfer of a large packet resource")
+@StackTrace(false)
+public class BlockwiseTransferEvent extends Event {
+
+    @Label("Resource")
+    String resource;
+
+    @Label("Client")
+    String client;
+
+    @Label("Direction")
+    String direction;
+
+    @Label("Block Size")
+    @DataAmount
+    int blockSize;
+
+    @Label("Blocks")
+    int blocks;
+
+    @Label("Retransmissions")
+    int retransmissions;
+
+    @Label("Transferred")
+    @DataAmount
+    long bytes;
+
+    @Label("Transfer Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long transferTime;
+}
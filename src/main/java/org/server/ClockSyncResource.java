@@ -0,0 +1,84 @@
+/********************************************************************************
+ * Copyright (c) 12-20-2024 Contributors to the Eclipse Foundation
+ * 
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ * 
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0, or the Eclipse Distribution License
+ * v1.0 which is available at
+ * https://www.eclipse.org/org/documents/edl-v10.php.
+ * 
+ * SPDX-License-Identifier: EPL-2.0 OR BSD-3-Clause
+ ********************************************************************************/
+
+package org.server;
+
+import org.eclipse.californium.core.CoapResource;
+import org.eclipse.californium.core.coap.CoAP.ResponseCode;
+import org.eclipse.californium.core.coap.MediaTypeRegistry;
+import org.eclipse.californium.core.server.resources.CoapExchange;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * ClockSyncResource is a CoAP resource to synchronize the station clocks.
+ * 
+ * It implements an NTP-style timestamp exchange against the monotonic
+ * server clock of {@link ServerTimestamp}. The station POSTs its send time
+ * {"t1":T1} and the server answers {"t1":T1,"t2":T2,"t3":T3}, with T2 the
+ * time the request was received by the endpoint and T3 the time the response
+ * is sent, both in milliseconds of the server clock. With its receive time
+ * T4, the station estimates:
+ * 
+ * <pre>
+ * offset = ((T2 - T1) + (T3 - T4)) / 2
+ * delay  = (T4 - T1) - (T3 - T2)
+ * </pre>
+ * 
+ * The server time of a station time is the station time plus the offset.
+ * The exchange with the smallest delay gives the best estimate. The
+ * actuator echoes carry the receive time of the notification in server time,
+ * so the statistics can separate the downlink and uplink latency.
+ */
+public class ClockSyncResource extends CoapResource {
+
+    /**
+     * Constructor for ClockSyncResource.
+     */
+    public ClockSyncResource() {
+        // Set resource identifier
+        super("clocksync");
+        // Set display name
+        getAttributes().setTitle("Clock Sync Resource");
+    }
+
+    /**
+     * Handle POST requests.
+     * 
+     * @param exchange CoapExchange object that contains the request and response.
+     */
+    @Override
+    public void handlePOST(CoapExchange exchange) {
+        long timestamp = exchange.advanced().getRequest().getNanoTimestamp();
+        long received = timestamp == 0 ? ServerTimestamp.getMonotonicTime() : ServerTimestamp.toMonotonicTime(timestamp);
+        String payload = new String(exchange.getRequestPayload());
+        ServerLog.info("Received POST, Resource: clocksync, Payload: " + payload);
+
+        JSONObject response = new JSONObject();
+        try {
+            if (!payload.isEmpty()) {
+                response.put("t1", new JSONObject(payload).getLong("t1"));
+            }
+        } catch (JSONException e) {
+            exchange.respond(ResponseCode.BAD_REQUEST, "expected {\"t1\":<station time>}");
+            ServerLog.info("Sent Error, Resource: clocksync");
+            return;
+        }
+        response.put("t2", received);
+        response.put("t3", ServerTimestamp.getMonotonicTime());
+        exchange.respond(ResponseCode.CONTENT, response.toString(), MediaTypeRegistry.APPLICATION_JSON);
+        ServerLog.info("Sent Response, Resource: clocksync, Payload: " + response);
+    }
+}
@@ -0,0 +1,514 @@
+/********************************************************************************
+ * Copyright (c) 12-20-2024 Contributors to the Eclipse Foundation
+ * 
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ * 
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0, or the Eclipse Distribution License
+ * v1.0 which is available at
+ * https://www.eclipse.org/org/documents/edl-v10.php.
+ * 
+ * SPDX-License-Identifier: EPL-2.0 OR BSD-3-Clause
+ ********************************************************************************/
+
+
+package org.server;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.eclipse.californium.elements.config.Configuration;
+import org.eclipse.californium.elements.util.DaemonThreadFactory;
+import org.eclipse.californium.elements.util.StringUtil;
+import org.eclipse.californium.scandium.DtlsClusterConnector.ClusterNodesProvider;
+
+/**
+ * Node of a cluster of server instances on one host.
+ * 
+ * The DTLS connectors of the nodes encode the node ID in the connection IDs
+ * and forward records received for another node over the cluster management
+ * addresses, so a client keeps its DTLS session when its datagrams arrive at
+ * another node. The test statistics stay local to the node which handles
+ * the session, the stat and actuatorstat resources aggregate them from all
+ * nodes, and validate resets them on all nodes. The statistics of the other
+ * nodes are fetched over a loopback TCP channel by a background thread
+ * every {@link #REFRESH_MS} milliseconds, so the resources answer from the
+ * cached statistics and never wait for another node. A reset is sent to the
+ * other nodes in the background as well.
+ * 
+ * The statistics requests are authenticated with the shared
+ * {@link ServerConfig#CLUSTER_SECRET}: the answering node sends a random
+ * challenge, the request carries the HMAC-SHA256 of the challenge and the
+ * command. Requests without a valid HMAC are closed unanswered, so other
+ * local processes can neither read nor reset the statistics. Each connection
+ * is served by its own thread and must complete within
+ * {@link #TIMEOUT_MS}, a stalled client does not delay the other nodes.
+ * 
+ * Node N uses the cluster management port BASE_PORT + N and the statistics
+ * port BASE_PORT + 100 + N on the loopback interface. Without cluster, the
+ * node only answers with its local statistics.
+ */
+public class ClusterNode implements ClusterNodesProvider {
+
+    private static final int STATS_PORT_OFFSET = 100;
+    private static final int TIMEOUT_MS = 1000;
+    private static final long REFRESH_MS = 1000;
+    private static final int MAX_CONNECTIONS = 16;
+    private static final int MAX_LINE = 256;
+    private static final int CHALLENGE_SIZE = 16;
+    private static final String HMAC = "HmacSHA256";
+
+    private final SharedData sharedData;
+    private final int nodeId;
+    private final int nodes;
+    private final int basePort;
+    private final InetAddress loopback = InetAddress.getLoopbackAddress();
+    private final SecretKeySpec secret;
+    private final SecureRandom random = new SecureRandom();
+    // request to the last answers of the other nodes
+    private final Map<String, List<String>> answers = new ConcurrentHashMap<>();
+    private final Set<Integer> unavailable = new HashSet<>();
+    private volatile ScheduledExecutorService refresher;
+
+    /**
+     * Create the node from the configuration.
+     * 
+     * @param config the configuration
+     * @param sharedData SharedData object with the local statistics
+     */
+    public ClusterNode(Configuration config, SharedData sharedData) {
+        this.sharedData = sharedData;
+        this.nodes = config.get(ServerConfig.CLUSTER_NODES);
+        this.nodeId = config.get(ServerConfig.CLUSTER_NODE_ID);
+        this.basePort = config.get(ServerConfig.CLUSTER_BASE_PORT);
+        if (nodeId >= nodes) {
+            throw new IllegalArgumentException("Node ID " + nodeId + " is not below the number of nodes " + nodes);
+        }
+        String secret = config.get(ServerConfig.CLUSTER_SECRET);
+        if (nodes > 1 && (secret == null || secret.isEmpty())) {
+            throw new IllegalArgumentException(ServerConfig.CLUSTER_SECRET.getKey() + " is required for a cluster");
+        }
+        this.secret = nodes > 1 ? new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), HMAC) : null;
+    }
+
+    /**
+     * Check if the server runs as cluster.
+     * 
+     * @return {@code true} if there is more than one node
+     */
+    public boolean isEnabled() {
+        return nodes > 1;
+    }
+
+    /**
+     * Get the ID of this node.
+     * 
+     * @return the node ID
+     */
+    public int getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Get the cluster management address of this node.
+     * 
+     * @return the cluster management address
+     */
+    public InetSocketAddress getManagementAddress() {
+        return getClusterNode(nodeId);
+    }
+
+    @Override
+    public InetSocketAddress getClusterNode(int nodeId) {
+        if (nodeId < 0 || nodeId >= nodes) {
+            return null;
+        }
+        return new InetSocketAddress(loopback, basePort + nodeId);
+    }
+
+    @Override
+    public boolean available(InetSocketAddress destinationConnector) {
+        return true;
+    }
+
+    /**
+     * Start answering the statistics requests of the other nodes.
+     * 
+     * @throws IOException if the statistics port can not be bound
+     */
+    public void start() throws IOException {
+        if (!isEnabled()) {
+            return;
+        }
+        final ServerSocket server = new ServerSocket(basePort + STATS_PORT_OFFSET + nodeId, MAX_CONNECTIONS, loopback);
+        final ExecutorService workers = new ThreadPoolExecutor(0, MAX_CONNECTIONS, 60, TimeUnit.SECONDS,
+                new SynchronousQueue<Runnable>(), new DaemonThreadFactory("ClusterStats#" + nodeId));
+        Thread thread = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                while (!server.isClosed()) {
+                    try {
+                        final Socket socket = server.accept();
+                        try {
+                            workers.execute(() -> answer(socket));
+                        } catch (RejectedExecutionException e) {
+                            ServerLog.info("Cluster statistics request dropped, too many connections");
+                            socket.close();
+                        }
+                    } catch (IOException e) {
+                        ServerLog.info("Cluster statistics connection failed: " + e.getMessage());
+                    }
+                }
+            }
+        }, "ClusterNode#" + nodeId);
+        thread.setDaemon(true);
+        thread.start();
+
+        ScheduledExecutorService refresher = Executors
+                .newSingleThreadScheduledExecutor(new DaemonThreadFactory("ClusterRefresh#" + nodeId));
+        refresher.scheduleWithFixedDelay(this::refresh, 0, REFRESH_MS, TimeUnit.MILLISECONDS);
+        this.refresher = refresher;
+    }
+
+    /**
+     * Get the number of requests of all nodes.
+     * 
+     * @return the number of requests
+     */
+    public long stat() {
+        long total = sharedData.counters.total();
+        for (String stat : cached("stat")) {
+            try {
+                total += Long.parseLong(stat.trim());
+            } catch (NumberFormatException e) {
+                // node answered with garbage, ignore it
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Get the actuator statistics of all nodes.
+     * 
+     * The statistics of the nodes are merged with
+     * {@link #mergeActuatorStats(List)}.
+     * 
+     * @return the statistics as a string
+     */
+    public String actuatorStat() {
+        String local = sharedData.actuatorStatistics.getStats();
+        if (!isEnabled()) {
+            return local;
+        }
+        List<String> all = cached("actuatorstat");
+        all.add(local);
+        return mergeActuatorStats(all);
+    }
+
+    /**
+     * Merge actuator statistics.
+     * 
+     * Counters are summed, the average latencies are weighted by the echoes
+     * received by each node or station.
+     * 
+     * @param all the statistics, as returned by
+     *            {@link ActuatorStatistics#getStats()}
+     * @return the merged statistics as a string
+     */
+    static String mergeActuatorStats(List<String> all) {
+        Map<Integer, Long> histogram = new TreeMap<>();
+        Map<String, Long> counters = new TreeMap<>();
+        Map<Integer, Long> bursts = new TreeMap<>();
+        Map<Integer, String> burstKeys = new TreeMap<>();
+        Map<Integer, Long> downlink = new TreeMap<>();
+        Map<Integer, Long> uplink = new TreeMap<>();
+        long weightedLatency = 0;
+        long weightedDownlink = 0;
+        long weightedUplink = 0;
+        long received = 0;
+        long oneWay = 0;
+        for (String stats : all) {
+            long nodeReceived = 0;
+            long nodeAverage = 0;
+            long nodeOneWay = 0;
+            long nodeDownlink = 0;
+            long nodeUplink = 0;
+            for (String line : stats.split("\n")) {
+                String[] parts = line.split(";");
+                if (parts.length != 2) {
+                    continue;
+                }
+                String key = parts[0];
+                long value;
+                try {
+                    value = Long.parseLong(parts[1].trim());
+                } catch (NumberFormatException e) {
+                    continue;
+                }
+                if (key.equals("average_ms")) {
+                    nodeAverage = value;
+                } else if (key.equals("downlink_average_ms")) {
+                    nodeDownlink = value;
+                } else if (key.equals("uplink_average_ms")) {
+                    nodeUplink = value;
+                } else if (key.equals("one_way")) {
+                    nodeOneWay = value;
+                } else if (key.startsWith("downlink_")) {
+                    downlink.merge(Integer.parseInt(key.substring("downlink_".length())), value, Long::sum);
+                } else if (key.startsWith("uplink_")) {
+                    uplink.merge(Integer.parseInt(key.substring("uplink_".length())), value, Long::sum);
+                } else if (key.startsWith("burst_")) {
+                    // the last bucket is "burst_N+"
+                    int length = Integer.parseInt(key.replaceAll("\\D", ""));
+                    bursts.merge(length, value, Long::sum);
+                    burstKeys.put(length, key);
+                } else if (Character.isDigit(key.charAt(0))) {
+                    histogram.merge(Integer.parseInt(key), value, Long::sum);
+                    nodeReceived += value;
+                } else {
+                    counters.merge(key, value, Long::sum);
+                }
+            }
+            weightedLatency += nodeAverage * nodeReceived;
+            received += nodeReceived;
+            weightedDownlink += nodeDownlink * nodeOneWay;
+            weightedUplink += nodeUplink * nodeOneWay;
+            oneWay += nodeOneWay;
+        }
+
+        StringBuilder result = new StringBuilder();
+        for (Map.Entry<Integer, Long> entry : histogram.entrySet()) {
+            result.append(entry.getKey()).append(";").append(entry.getValue()).append("\n");
+        }
+        result.append("lost;").append(counters.getOrDefault("lost", 0L)).append("\n");
+        result.append("average_ms;").append(received == 0 ? 0 : weightedLatency / received).append("\n");
+        result.append("duplicates;").append(counters.getOrDefault("duplicates", 0L)).append("\n");
+        result.append("reordered;").append(counters.getOrDefault("reordered", 0L)).append("\n");
+        result.append("late;").append(counters.getOrDefault("late", 0L)).append("\n");
+        result.append("unknown;").append(counters.getOrDefault("unknown", 0L));
+        for (Map.Entry<Integer, Long> entry : bursts.entrySet()) {
+            result.append("\n").append(burstKeys.get(entry.getKey())).append(";").append(entry.getValue());
+        }
+        if (oneWay > 0) {
+            for (Map.Entry<Integer, Long> entry : downlink.entrySet()) {
+                result.append("\ndownlink_").append(entry.getKey()).append(";").append(entry.getValue());
+            }
+            for (Map.Entry<Integer, Long> entry : uplink.entrySet()) {
+                result.append("\nuplink_").append(entry.getKey()).append(";").append(entry.getValue());
+            }
+            result.append("\ndownlink_average_ms;").append(weightedDownlink / oneWay);
+            result.append("\nuplink_average_ms;").append(weightedUplink / oneWay);
+            result.append("\none_way;").append(oneWay);
+        }
+        return result.toString();
+    }
+
+    /**
+     * Reset the statistics of the other nodes.
+     * 
+     * The reset is sent in the background, the cached statistics of the
+     * other nodes are dropped until they are fetched again.
+     */
+    public void reset() {
+        ScheduledExecutorService refresher = this.refresher;
+        if (refresher != null) {
+            answers.clear();
+            refresher.execute(() -> {
+                remote("reset");
+                refresh();
+            });
+        }
+    }
+
+    /**
+     * Fetch the statistics of the other nodes into the cache.
+     */
+    private void refresh() {
+        answers.put("stat", remote("stat"));
+        answers.put("actuatorstat", remote("actuatorstat"));
+    }
+
+    /**
+     * Get the cached answers of the other nodes.
+     * 
+     * @param command the request
+     * @return a modifiable copy of the last answers
+     */
+    private List<String> cached(String command) {
+        List<String> cached = answers.get(command);
+        return cached == null ? new ArrayList<>() : new ArrayList<>(cached);
+    }
+
+    /**
+     * Authenticate and answer a statistics request of another node.
+     * 
+     * @param socket the connection of the other node
+     */
+    private void answer(Socket socket) {
+        try (Socket close = socket) {
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(TIMEOUT_MS);
+            byte[] challenge = new byte[CHALLENGE_SIZE];
+            random.nextBytes(challenge);
+            String nonce = StringUtil.byteArray2Hex(challenge);
+            Writer out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8);
+            out.write(nonce + "\n");
+            out.flush();
+            String request = readLine(socket, new BufferedInputStream(socket.getInputStream()), deadline);
+            int separator = request.lastIndexOf(';');
+            String command = separator < 0 ? "" : request.substring(0, separator);
+            byte[] mac = request.substring(separator + 1).getBytes(StandardCharsets.US_ASCII);
+            if (separator < 0 || !MessageDigest.isEqual(mac, hmac(nonce, command).getBytes(StandardCharsets.US_ASCII))) {
+                ServerLog.info("Cluster statistics request rejected, invalid authentication");
+                return;
+            }
+            out.write(local(command));
+            out.flush();
+        } catch (IOException | GeneralSecurityException e) {
+            ServerLog.info("Cluster statistics request failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Calculate the HMAC of a request.
+     * 
+     * @param nonce the challenge of the answering node
+     * @param command the request
+     * @return the HMAC as hexadecimal string
+     * @throws GeneralSecurityException if HMAC-SHA256 is not supported
+     */
+    private String hmac(String nonce, String command) throws GeneralSecurityException {
+        Mac mac = Mac.getInstance(HMAC);
+        mac.init(secret);
+        return StringUtil.byteArray2Hex(mac.doFinal((nonce + ";" + command).getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Read a line of a bounded length before a deadline.
+     * 
+     * @param socket the connection
+     * @param in the input stream of the connection
+     * @param deadline the deadline in nanoseconds of {@link System#nanoTime()}
+     * @return the line without the line feed
+     * @throws IOException if the line is too long, not complete in time, or
+     *             the connection fails
+     */
+    private static String readLine(Socket socket, InputStream in, long deadline) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        while (true) {
+            long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (remaining <= 0) {
+                throw new SocketTimeoutException("line not complete in time");
+            }
+            socket.setSoTimeout((int) remaining);
+            int b = in.read();
+            if (b < 0 || b == '\n') {
+                return new String(line.toByteArray(), StandardCharsets.UTF_8);
+            }
+            if (line.size() >= MAX_LINE) {
+                throw new IOException("line too long");
+            }
+            line.write(b);
+        }
+    }
+
+    /**
+     * Answer a statistics request of another node.
+     * 
+     * @param command the request
+     * @return the answer
+     */
+    private String local(String command) {
+        if ("stat".equals(command)) {
+            return Long.toString(sharedData.counters.total());
+        } else if ("actuatorstat".equals(command)) {
+            return sharedData.actuatorStatistics.getStats();
+        } else if ("reset".equals(command)) {
+            sharedData.counters.reset();
+            sharedData.actuatorStatistics.clear();
+            return "reset";
+        }
+        return "";
+    }
+
+    /**
+     * Send a statistics request to the other nodes.
+     * 
+     * Nodes which are not running are skipped. Only called by the refresh
+     * thread.
+     * 
+     * @param command the request
+     * @return the answers of the other nodes
+     */
+    private List<String> remote(String command) {
+        List<String> answers = new ArrayList<>();
+        if (!isEnabled()) {
+            return answers;
+        }
+        for (int node = 0; node < nodes; node++) {
+            if (node == nodeId) {
+                continue;
+            }
+            try (Socket socket = new Socket()) {
+                socket.connect(new InetSocketAddress(loopback, basePort + STATS_PORT_OFFSET + node), TIMEOUT_MS);
+                InputStream stream = new BufferedInputStream(socket.getInputStream());
+                String nonce = readLine(socket, stream, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(TIMEOUT_MS));
+                socket.setSoTimeout(TIMEOUT_MS);
+                Writer out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8);
+                out.write(command + ";" + hmac(nonce, command) + "\n");
+                out.flush();
+                socket.shutdownOutput();
+                StringBuilder answer = new StringBuilder();
+                BufferedReader in = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8));
+                char[] buffer = new char[1024];
+                int length;
+                while ((length = in.read(buffer)) > 0) {
+                    answer.append(buffer, 0, length);
+                }
+                answers.add(answer.toString());
+                if (unavailable.remove(node)) {
+                    ServerLog.info("Cluster node " + node + " available");
+                }
+            } catch (IOException | GeneralSecurityException e) {
+                if (unavailable.add(node)) {
+                    ServerLog.info("Cluster node " + node + " not available: " + e.getMessage());
+                }
+            }
+        }
+        return answers;
+    }
+}
@@ -0,0 +1,180 @@
+/********************************************************************************
+ * Copyright (c) 12-20-2024 Contributors to the Eclipse Foundation
+ * 
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ * 
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0, or the Eclipse Distribution License
+ * v1.0 which is available at
+ * https://www.eclipse.org/org/documents/edl-v10.php.
+ * 
+ * SPDX-License-Identifier: EPL-2.0 OR BSD-3-Clause
+ ********************************************************************************/
+
+package org.server;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.eclipse.californium.elements.config.Configuration;
+
+/**
+ * Adaptive limit of the requests processed concurrently by the server.
+ * 
+ * The limit follows an AIMD scheme on the measured service time, the time
+ * spent in the handler without the simulated latency: it grows by one per
+ * limit of completed requests while the service time stays below the target,
+ * and is multiplied by {@link #BACKOFF} at most once per target interval
+ * when the service time exceeds it.
+ * 
+ * Requests are ranked by priority. Bulk requests are shed first, at
+ * {@link #BULK_SHARE} of the limit, and priority requests are still admitted
+ * up to twice the limit, so test control stays responsive under load.
+ */
+public class ConcurrencyLimiter {
+
+    /**
+     * Priority of a request.
+     */
+    public enum Priority {
+        HIGH, NORMAL, BULK
+    }
+
+    private static final double BACKOFF = 0.9;
+    private static final double BULK_SHARE = 0.75;
+    private static final double SMOOTHING = 0.1;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLongArray rejected = new AtomicLongArray(Priority.values().length);
+    private final List<String> priorityResources;
+    private final List<String> bulkResources;
+    private final int minLimit;
+    private final int maxLimit;
+    private final long targetNanos;
+    private double limit;
+    private double serviceNanos;
+    private long lastDecrease;
+    private volatile Queue<?> queue;
+
+    /**
+     * Create the concurrency limiter from the configuration.
+     * 
+     * @param config the configuration
+     */
+    public ConcurrencyLimiter(Configuration config) {
+        this.priorityResources = ServerConfig.getList(config, ServerConfig.LOAD_PRIORITY_RESOURCES);
+        this.bulkResources = ServerConfig.getList(config, ServerConfig.LOAD_BULK_RESOURCES);
+        this.minLimit = config.get(ServerConfig.LOAD_MIN_LIMIT);
+        this.maxLimit = Math.max(minLimit, config.get(ServerConfig.LOAD_MAX_LIMIT));
+        this.limit = Math.max(minLimit, Math.min(maxLimit, config.get(ServerConfig.LOAD_INITIAL_LIMIT)));
+        this.targetNanos = config.get(ServerConfig.LOAD_TARGET_SERVICE_TIME, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Set the queue of the executor processing the requests.
+     * 
+     * Only used to report the queue depth.
+     * 
+     * @param queue the queue of the executor
+     */
+    public void setQueue(Queue<?> queue) {
+        this.queue = queue;
+    }
+
+    /**
+     * Get the priority of a resource.
+     * 
+     * @param resource the resource name
+     * @return the priority
+     */
+    public Priority priorityOf(String resource) {
+        if (priorityResources.contains(resource)) {
+            return Priority.HIGH;
+        } else if (bulkResources.contains(resource)) {
+            return Priority.BULK;
+        }
+        return Priority.NORMAL;
+    }
+
+    /**
+     * Try to admit a request.
+     * 
+     * Every admitted request must be released with {@link #release(long)}.
+     * 
+     * @param priority the priority of the request
+     * @return true if the request is admitted, false if it must be shed
+     */
+    public boolean tryAcquire(Priority priority) {
+        int allowed = allowed(priority);
+        while (true) {
+            int current = inFlight.get();
+            if (current >= allowed) {
+                rejected.incrementAndGet(priority.ordinal());
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Release an admitted request and adapt the limit.
+     * 
+     * @param serviceNanos the service time of the request in nanoseconds
+     */
+    public void release(long serviceNanos) {
+        int current = inFlight.getAndDecrement();
+        long now = System.nanoTime();
+        synchronized (this) {
+            this.serviceNanos += (serviceNanos - this.serviceNanos) * SMOOTHING;
+            if (serviceNanos > targetNanos) {
+                if (now - lastDecrease > targetNanos) {
+                    lastDecrease = now;
+                    limit = Math.max(minLimit, limit * BACKOFF);
+                }
+            } else if (current * 2 >= limit) {
+                // only grow if the limit is actually used
+                limit = Math.min(maxLimit, limit + 1 / limit);
+            }
+        }
+    }
+
+    /**
+     * Get the statistics as a string.
+     * 
+     * @return the statistics as a string
+     */
+    public String getStats() {
+        StringBuilder stats = new StringBuilder();
+        synchronized (this) {
+            stats.append("limit;").append((int) limit).append("\n");
+            stats.append("service_ms;").append(TimeUnit.NANOSECONDS.toMillis((long) serviceNanos)).append("\n");
+        }
+        Queue<?> queue = this.queue;
+        stats.append("inflight;").append(inFlight.get()).append("\n");
+        stats.append("queue;").append(queue == null ? 0 : queue.size()).append("\n");
+        for (Priority priority : Priority.values()) {
+            stats.append("rejected_").append(priority.name().toLowerCase()).append(";")
+                    .append(rejected.get(priority.ordinal())).append("\n");
+        }
+        stats.setLength(stats.length() - 1);
+        return stats.toString();
+    }
+
+    private synchronized int allowed(Priority priority) {
+        switch (priority) {
+        case HIGH:
+            return (int) (limit * 2);
+        case BULK:
+            return Math.max(1, (int) (limit * BULK_SHARE));
+        default:
+            return (int) limit;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+/********************************************************************************
+ * Copyright (c) 12-20-2024 Contributors to the Eclipse Foundation
+ * 
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ * 
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0, or the Eclipse Distribution License
+ * v1.0 which is available at
+ * https://www.eclipse.org/org/documents/edl-v10.php.
+ * 
+ * SPDX-License-Identifier: EPL-2.0 OR BSD-3-Clause
+ ********************************************************************************/
+
+package org.server;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.security.Principal;
+import java.util.Properties;
+
+import org.eclipse.californium.core.CoapResource;
+import org.eclipse.californium.core.coap.CoAP.ResponseCode;
+import org.eclipse.californium.core.server.resources.CoapExchange;
+
+/**
+ * ConfigResource is a CoAP resource to read and change the runtime settings.
+ * 
+ * A GET returns the version and the current runtime settings. A PUT with
+ * lines "key=value" in the properties format updates them. Updates are only
+ * accepted over DTLS from the configured control PSK identity.
+ */
+public class ConfigResource extends CoapResource {
+
+    private SharedData sharedData;
+
+    /**
+     * Constructor for ConfigResource.
+     * 
+     * @param sharedData SharedData object that contains the runtime configuration
+     */
+    public ConfigResource(SharedData sharedData) {
+        // Set resource identifier
+        super("config");
+        this.sharedData = sharedData;
+        // Set display name
+        getAttributes().setTitle("Config Resource");
+    }
+
+    /**
+     * Handle GET requests.
+     * 
+     * @param exchange CoapExchange object that contains the request and response.
+     */
+    @Override
+    public void handleGET(CoapExchange exchange) {
+        ServerLog.info("Received GET, Resource: config");
+        exchange.respond(ResponseCode.CONTENT, sharedData.config.getStats());
+        ServerLog.info("Sent Response, Resource: config");
+    }
+
+    /**
+     * Handle PUT requests.
+     * 
+     * @param exchange CoapExchange object that contains the request and response.
+     */
+    @Override
+    public void handlePUT(CoapExchange exchange) {
+        String payload = new String(exchange.getRequestPayload());
+        ServerLog.info("Received PUT, Resource: config, Payload: " + payload);
+
+        // Only the configured PSK identity may change the settings
+        Principal identity = exchange.advanced().getRequest().getSourceContext().getPeerIdentity();
+        if (!sharedData.config.isControlIdentity(identity)) {
+            exchange.respond(ResponseCode.UNAUTHORIZED, "PSK identity required");
+            ServerLog.info("Sent Error, Resource: config");
+            return;
+        }
+
+        try {
+            Properties properties = new Properties();
+            properties.load(new StringReader(payload));
+            RuntimeSettings settings = sharedData.config.update(properties);
+            exchange.respond(ResponseCode.CHANGED, "version;" + settings.version);
+            ServerLog.info("Sent Response, Resource: config, Version: " + settings.version);
+        } catch (IOException | IllegalArgumentException e) {
+            exchange.respond(ResponseCode.BAD_REQUEST, e.getMessage());
+            ServerLog.info("Sent Error, Resource: config");
+        }
+    }
+}
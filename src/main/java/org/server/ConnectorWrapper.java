@@ -0,0 +1,101 @@
+/********************************************************************************
+ * Copyright (c) 12-20-2024 Contributors to the Eclipse Foundation
+ * 
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ * 
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0, or the Eclipse Distribution License
+ * v1.0 which is available at
+ * https://www.eclipse.org/org/documents/edl-v10.php.
+ * 
+ * SPDX-License-Identifier: EPL-2.0 OR BSD-3-Clause
+ ********************************************************************************/
+
+
+package org.server;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.InetSocketAddress;
+
+import org.eclipse.californium.elements.Connector;
+import org.eclipse.californium.elements.EndpointContextMatcher;
+import org.eclipse.californium.elements.RawData;
+import org.eclipse.californium.elements.RawDataChannel;
+
+/**
+ * Base class of the connectors which wrap the connector of an endpoint.
+ * 
+ * All calls are delegated to the wrapped connector. Subclasses override the
+ * calls they observe or change.
+ */
+public abstract class ConnectorWrapper implements Connector {
+
+    protected final Connector connector;
+
+    /**
+     * Wrap a connector.
+     * 
+     * @param connector the wrapped connector
+     */
+    protected ConnectorWrapper(Connector connector) {
+        this.connector = connector;
+    }
+
+    @Override
+    public void start() throws IOException {
+        connector.start();
+    }
+
+    @Override
+    public void stop() {
+        connector.stop();
+    }
+
+    @Override
+    public void destroy() {
+        connector.destroy();
+    }
+
+    @Override
+    public void send(RawData msg) {
+        connector.send(msg);
+    }
+
+    @Override
+    public void setRawDataReceiver(RawDataChannel messageHandler) {
+        connector.setRawDataReceiver(messageHandler);
+    }
+
+    @Override
+    public void setEndpointContextMatcher(EndpointContextMatcher matcher) {
+        connector.setEndpointContextMatcher(matcher);
+    }
+
+    @Override
+    public InetSocketAddress getAddress() {
+        return connector.getAddress();
+    }
+
+    @Override
+    public String getProtocol() {
+        return connector.getProtocol();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return connector.isRunning();
+    }
+
+    @Override
+    public void processDatagram(DatagramPacket datagram) {
+        connector.processDatagram(datagram);
+    }
+
+    @Override
+    public String toString() {
+        return connector.toString();
+    }
+}
@@ -0,0 +1,117 @@
+/********************************************************************************
+ * Copyright (c) 12-20-2024 Contributors to the Eclipse Foundation
+ * 
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ * 
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0, or the Eclipse Distribution License
+ * v1.0 which is available at
+ * https://www.eclipse.org/org/documents/edl-v10.php.
+ * 
+ * SPDX-License-Identifier: EPL-2.0 OR BSD-3-Clause
+ ********************************************************************************/
+
+package org.server;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Request counters, one per resource, grouped in epochs.
+ * 
+ * The counters are striped LongAdders, so concurrent increments from the
+ * worker threads do not contend. A reset does not touch the counters, it
+ * starts a new epoch with fresh counters: increments racing with a reset
+ * land in the old epoch and never leak into the new one, and the total of
+ * an epoch is always read from the counters of that epoch only.
+ */
+public class EpochCounters {
+
+    /**
+     * The counters of one epoch.
+     */
+    private static final class Epoch {
+
+        private final long id;
+        private final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+
+        private Epoch(long id) {
+            this.id = id;
+        }
+
+        private LongAdder counter(String name) {
+            LongAdder counter = counters.get(name);
+            if (counter == null) {
+                counter = counters.computeIfAbsent(name, key -> new LongAdder());
+            }
+            return counter;
+        }
+
+        private long total() {
+            long total = 0;
+            for (LongAdder counter : counters.values()) {
+                total += counter.sum();
+            }
+            return total;
+        }
+    }
+
+    private final AtomicReference<Epoch> current = new AtomicReference<>(new Epoch(0));
+
+    /**
+     * Increment the counter of a resource in the current epoch.
+     * 
+     * @param name the resource name
+     */
+    public void increment(String name) {
+        current.get().counter(name).increment();
+    }
+
+    /**
+     * Get the counter of a resource in the current epoch.
+     * 
+     * @param name the resource name
+     * @return the counter value
+     */
+    public long get(String name) {
+        LongAdder counter = current.get().counters.get(name);
+        return counter == null ? 0 : counter.sum();
+    }
+
+    /**
+     * Get the sum of all counters in the current epoch.
+     * 
+     * @return the total
+     */
+    public long total() {
+        return current.get().total();
+    }
+
+    /**
+     * Get the current epoch.
+     * 
+     * @return the id of the current epoch
+     */
+    public long epoch() {
+        return current.get().id;
+    }
+
+    /**
+     * Start a new epoch with all counters at 0.
+     * 
+     * @return the id of the new epoch
+     */
+    public long reset() {
+        while (true) {
+            Epoch epoch = current.get();
+            Epoch next = new Epoch(epoch.id + 1);
+            if (current.compareAndSet(epoch, next)) {
+                return next.id;
+            }
+        }
+    }
+}
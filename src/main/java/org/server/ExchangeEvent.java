@@ -0,0 +1,63 @@
+/********************************************************************************
+ * Copyright (c) 12-20-2024 Contributors to the Eclipse Foundation
+ * 
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ * 
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0, or the Eclipse Distribution License
+ * v1.0 which is available at
+ * https://www.eclipse.org/org/documents/edl-v10.php.
+ * 
+ * SPDX-License-Identifier: EPL-2.0 OR BSD-3-Clause
+ ********************************************************************************/
+
+package org.server;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight recorder event of a request handled by a resource.
+ * 
+ * The duration of the event is the time the handler runs. The service time
+ * starts at the reception of the request and includes the time in the queue
+ * of the executor.
+ * 
+ * @see AdmissionControlDeliverer
+ */
+@Name("org.server.Exchange")
+@Label("Exchange")
+@Category("TWT Testbed")
+@Description("Request handled by a resource")
+@StackTrace(false)
+public class ExchangeEvent extends Event {
+
+    @Label("Resource")
+    String resource;
+
+    @Label("Method")
+    String method;
+
+    @Label("Payload Size")
+    @DataAmount
+    int payloadSize;
+
+    @Label("Response Code")
+    String responseCode;
+
+    @Label("Service Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long serviceTime;
+
+    @Label("Simulated Delay")
+    @Timespan(Timespan.MILLISECONDS)
+    long simulatedDelay;
+}
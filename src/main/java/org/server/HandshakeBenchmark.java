@@ -0,0 +1,430 @@
+/********************************************************************************
+ * Copyright (c) 12-20-2024 Contributors to the Eclipse Foundation
+ * 
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ * 
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0, or the Eclipse Distribution License
+ * v1.0 which is available at
+ * https://www.eclipse.org/org/documents/edl-v10.php.
+ * 
+ * SPDX-License-Identifier: EPL-2.0 OR BSD-3-Clause
+ ********************************************************************************/
+
+package org.server;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.cert.Certificate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.eclipse.californium.elements.AddressEndpointContext;
+import org.eclipse.californium.elements.EndpointContext;
+import org.eclipse.californium.elements.MessageCallback;
+import org.eclipse.californium.elements.RawData;
+import org.eclipse.californium.elements.config.Configuration;
+import org.eclipse.californium.elements.util.SslContextUtil;
+import org.eclipse.californium.scandium.DTLSConnector;
+import org.eclipse.californium.scandium.config.DtlsConfig;
+import org.eclipse.californium.scandium.config.DtlsConfig.DtlsRole;
+import org.eclipse.californium.scandium.config.DtlsConnectorConfig;
+import org.eclipse.californium.scandium.dtls.CertificateType;
+import org.eclipse.californium.scandium.dtls.cipher.CipherSuite;
+import org.eclipse.californium.scandium.dtls.pskstore.AdvancedSinglePskStore;
+import org.eclipse.californium.scandium.dtls.x509.SingleCertificateProvider;
+import org.eclipse.californium.scandium.dtls.x509.StaticNewAdvancedCertificateVerifier;
+
+/**
+ * Throughput benchmark of the DTLS handshakes.
+ * 
+ * For each mode, the benchmark starts a DTLS server connector on the
+ * loopback interface, configured as the server in {@link Main} with the
+ * handshake limiter. A number of client
+ * connectors then run full handshakes concurrently, each client clears its
+ * connection state before the next handshake, so no session is resumed.
+ * The latency of a handshake is measured from sending the first application
+ * record until it is sent, which includes the cookie exchange.
+ * 
+ * The X.509 mode doesn't use the demo certificates, which expire. The
+ * benchmark generates a short-lived root and server and client certificates
+ * signed by it with the keytool of the running JRE.
+ * 
+ * The first handshake of every client is not counted, it warms up the JIT.
+ * The clients run in the same process as the server, so they share the CPUs
+ * with it.
+ * 
+ * Run it with:
+ * 
+ * <pre>
+ * java -cp twt-testbed-server.jar org.server.HandshakeBenchmark [handshakes] [clients] [modes] [KEY=value...]
+ * </pre>
+ * 
+ * The modes are a comma separated list of PSK, ECDHE_PSK, RPK and X509.
+ * Arguments "KEY=value" override the configuration file, for example
+ * DTLS.CONNECTOR_THREAD_COUNT or TWT.DTLS_MAX_PENDING_HANDSHAKES.
+ */
+public class HandshakeBenchmark {
+
+    private static final byte[] PAYLOAD = "benchmark".getBytes();
+    private static final long HANDSHAKE_TIMEOUT_SECONDS = 30;
+    private static final String STORE_PASSWORD = "benchmark";
+    private static final int CERTIFICATE_VALIDITY_DAYS = 1;
+
+    /**
+     * Authentication modes of the benchmark.
+     */
+    private enum Mode {
+
+        PSK(CipherSuite.TLS_PSK_WITH_AES_128_CCM_8),
+        ECDHE_PSK(CipherSuite.TLS_ECDHE_PSK_WITH_AES_128_CBC_SHA256),
+        RPK(CipherSuite.TLS_ECDHE_ECDSA_WITH_AES_128_CCM_8),
+        X509(CipherSuite.TLS_ECDHE_ECDSA_WITH_AES_128_CCM_8);
+
+        private final CipherSuite suite;
+
+        private Mode(CipherSuite suite) {
+            this.suite = suite;
+        }
+    }
+
+    /**
+     * Credentials of the server and the clients.
+     */
+    private static class Credentials {
+
+        private final SslContextUtil.Credentials server;
+        private final SslContextUtil.Credentials client;
+        private final Certificate[] trustedCertificates;
+
+        private Credentials(SslContextUtil.Credentials server, SslContextUtil.Credentials client,
+                Certificate[] trustedCertificates) {
+            this.server = server;
+            this.client = client;
+            this.trustedCertificates = trustedCertificates;
+        }
+
+        /**
+         * Load the demo credentials of {@link Main}.
+         * 
+         * @return the demo credentials
+         */
+        private static Credentials demo() throws Exception {
+            return new Credentials(Main.loadCredentials("server"), Main.loadCredentials("client"),
+                    Main.loadTrustedCertificates());
+        }
+
+        /**
+         * Generate short-lived EC credentials with keytool.
+         * 
+         * The root certificate signs the server and the client certificate,
+         * all are valid for {@link #CERTIFICATE_VALIDITY_DAYS}. The key store
+         * is deleted after loading.
+         * 
+         * @return the generated credentials
+         */
+        private static Credentials generate() throws Exception {
+            Path directory = Files.createTempDirectory("twt-benchmark");
+            Path store = directory.resolve("benchmark.p12");
+            try {
+                keytool(store, "-genkeypair", "-alias", "root", "-dname", "CN=twt-benchmark-root", "-ext",
+                        "bc:c");
+                generate(store, directory, "server", "-ext", "san=ip:127.0.0.1,dns:localhost");
+                generate(store, directory, "client");
+                String uri = store.toString();
+                return new Credentials(
+                        SslContextUtil.loadCredentials(uri, "server", STORE_PASSWORD.toCharArray(),
+                                STORE_PASSWORD.toCharArray()),
+                        SslContextUtil.loadCredentials(uri, "client", STORE_PASSWORD.toCharArray(),
+                                STORE_PASSWORD.toCharArray()),
+                        SslContextUtil.loadTrustedCertificates(uri, "root", STORE_PASSWORD.toCharArray()));
+            } finally {
+                try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+                    for (Path file : files) {
+                        Files.delete(file);
+                    }
+                }
+                Files.delete(directory);
+            }
+        }
+
+        /**
+         * Generate a key pair and install a certificate signed by the root.
+         * 
+         * @param store the key store
+         * @param directory the directory for the request and the certificate
+         * @param alias the alias of the key pair
+         * @param extensions additional keytool extensions of the certificate
+         */
+        private static void generate(Path store, Path directory, String alias, String... extensions)
+                throws IOException, InterruptedException {
+            String request = directory.resolve(alias + ".csr").toString();
+            String certificate = directory.resolve(alias + ".crt").toString();
+            keytool(store, "-genkeypair", "-alias", alias, "-dname", "CN=twt-benchmark-" + alias);
+            keytool(store, "-certreq", "-alias", alias, "-file", request);
+            List<String> args = new ArrayList<>(Arrays.asList("-gencert", "-alias", "root", "-infile", request,
+                    "-outfile", certificate));
+            args.addAll(Arrays.asList(extensions));
+            keytool(store, args.toArray(new String[0]));
+            keytool(store, "-importcert", "-alias", alias, "-file", certificate);
+        }
+
+        /**
+         * Run the keytool of the running JRE on the key store.
+         * 
+         * @param store the key store
+         * @param args the command and its arguments
+         * @throws IOException if keytool fails
+         */
+        private static void keytool(Path store, String... args) throws IOException, InterruptedException {
+            List<String> command = new ArrayList<>();
+            command.add(Paths.get(System.getProperty("java.home"), "bin", "keytool").toString());
+            command.addAll(Arrays.asList(args));
+            if (args[0].equals("-genkeypair")) {
+                command.addAll(Arrays.asList("-keyalg", "EC", "-groupname", "secp256r1", "-validity",
+                        Integer.toString(CERTIFICATE_VALIDITY_DAYS)));
+            } else if (args[0].equals("-gencert")) {
+                command.addAll(Arrays.asList("-validity", Integer.toString(CERTIFICATE_VALIDITY_DAYS)));
+            }
+            command.addAll(Arrays.asList("-keystore", store.toString(), "-storetype", "PKCS12", "-storepass",
+                    STORE_PASSWORD, "-noprompt"));
+            Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+            String output = new String(process.getInputStream().readAllBytes());
+            if (process.waitFor() != 0) {
+                throw new IOException("keytool " + args[0] + " failed: " + output.trim());
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<String> positional = new ArrayList<>();
+        List<String> overrides = new ArrayList<>();
+        for (String arg : args) {
+            (arg.indexOf('=') > 0 ? overrides : positional).add(arg);
+        }
+        int handshakes = positional.size() > 0 ? Integer.parseInt(positional.get(0)) : 1000;
+        int clients = positional.size() > 1 ? Integer.parseInt(positional.get(1)) : 16;
+        List<Mode> modes = new ArrayList<>();
+        if (positional.size() > 2) {
+            for (String mode : positional.get(2).split(",")) {
+                modes.add(Mode.valueOf(mode.trim().toUpperCase()));
+            }
+        } else {
+            modes.addAll(Arrays.asList(Mode.values()));
+        }
+
+        Configuration configuration = Main.loadConfiguration(overrides.toArray(new String[0]));
+        System.out.println("handshakes;" + handshakes);
+        System.out.println("clients;" + clients);
+        System.out.println("processors;" + Runtime.getRuntime().availableProcessors());
+        System.out.println("dtls_threads;" + configuration.get(DtlsConfig.DTLS_CONNECTOR_THREAD_COUNT));
+        System.out.println("max_pending_handshakes;" + configuration.get(ServerConfig.DTLS_MAX_PENDING_HANDSHAKES));
+        Credentials demo = Credentials.demo();
+        Credentials generated = modes.contains(Mode.X509) ? Credentials.generate() : null;
+        for (Mode mode : modes) {
+            run(configuration, mode, mode == Mode.X509 ? generated : demo, handshakes, clients);
+        }
+    }
+
+    /**
+     * Run the handshakes of one mode and print the throughput and the
+     * latencies.
+     * 
+     * @param configuration the configuration of the server
+     * @param mode the authentication mode
+     * @param credentials the credentials of the server and the clients
+     * @param handshakes the number of handshakes
+     * @param clients the number of concurrent clients
+     */
+    private static void run(Configuration configuration, Mode mode, Credentials credentials, int handshakes,
+            int clients) throws Exception {
+        HandshakeLimiter limiter = new HandshakeLimiter(configuration);
+        DTLSConnector server = new DTLSConnector(Main.dtlsBuilder(configuration,
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), credentials.server,
+                credentials.trustedCertificates, limiter).build());
+        server.setRawDataReceiver(data -> {
+        });
+        server.start();
+
+        List<DTLSConnector> connectors = new ArrayList<>();
+        for (int index = 0; index < clients; index++) {
+            DTLSConnector client = createClient(configuration, mode, credentials);
+            client.start();
+            connectors.add(client);
+        }
+
+        AtomicInteger remaining = new AtomicInteger(handshakes);
+        AtomicInteger failures = new AtomicInteger();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<Long> latencies = Collections.synchronizedList(new ArrayList<Long>());
+        ExecutorService workers = Executors.newFixedThreadPool(clients);
+        CountDownLatch warm = new CountDownLatch(clients);
+        CountDownLatch go = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(clients);
+        for (DTLSConnector client : connectors) {
+            workers.execute(() -> {
+                try {
+                    handshake(client, server.getAddress(), failure);
+                    warm.countDown();
+                    go.await();
+                    while (remaining.getAndDecrement() > 0) {
+                        long latency = handshake(client, server.getAddress(), failure);
+                        if (latency < 0) {
+                            failures.incrementAndGet();
+                        } else {
+                            latencies.add(latency);
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    warm.countDown();
+                    done.countDown();
+                }
+            });
+        }
+        warm.await();
+        long start = System.nanoTime();
+        go.countDown();
+        done.await();
+        long elapsed = System.nanoTime() - start;
+
+        long[] sorted = new long[latencies.size()];
+        for (int index = 0; index < sorted.length; index++) {
+            sorted[index] = latencies.get(index);
+        }
+        Arrays.sort(sorted);
+        System.out.println("mode;" + mode);
+        System.out.println("cipher_suite;" + mode.suite.name());
+        System.out.println("handshakes;" + sorted.length);
+        System.out.println("failures;" + failures.get());
+        if (failure.get() != null) {
+            System.out.println("last_failure;" + failure.get().getMessage());
+        }
+        System.out.println("handshakes_per_sec;"
+                + String.format("%.1f", sorted.length * (double) TimeUnit.SECONDS.toNanos(1) / elapsed));
+        System.out.println("latency_p50_ms;" + millis(percentile(sorted, 0.50)));
+        System.out.println("latency_p90_ms;" + millis(percentile(sorted, 0.90)));
+        System.out.println("latency_p99_ms;" + millis(percentile(sorted, 0.99)));
+        System.out.println("latency_max_ms;" + millis(percentile(sorted, 1.0)));
+        System.out.println(limiter.getStats());
+
+        workers.shutdownNow();
+        for (DTLSConnector client : connectors) {
+            client.destroy();
+        }
+        server.destroy();
+    }
+
+    /**
+     * Create a client connector of a mode.
+     * 
+     * @param configuration the configuration of the server
+     * @param mode the authentication mode
+     * @param credentials the credentials of the clients
+     * @return the client connector
+     */
+    private static DTLSConnector createClient(Configuration configuration, Mode mode, Credentials credentials)
+            throws Exception {
+        Configuration config = new Configuration(configuration);
+        config.set(DtlsConfig.DTLS_ROLE, DtlsRole.CLIENT_ONLY);
+        config.set(DtlsConfig.DTLS_CIPHER_SUITES, Collections.singletonList(mode.suite));
+        config.set(DtlsConfig.DTLS_RECEIVER_THREAD_COUNT, 1);
+        config.set(DtlsConfig.DTLS_CONNECTOR_THREAD_COUNT, 1);
+        DtlsConnectorConfig.Builder builder = DtlsConnectorConfig.builder(config)
+                .setAddress(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        switch (mode) {
+        case PSK:
+        case ECDHE_PSK:
+            builder.setAdvancedPskStore(new AdvancedSinglePskStore("twttestbed", "secretkey".getBytes()));
+            break;
+        case RPK:
+            SslContextUtil.Credentials rpk = credentials.client;
+            builder.setCertificateIdentityProvider(new SingleCertificateProvider(rpk.getPrivateKey(), rpk.getPublicKey()));
+            builder.setAdvancedCertificateVerifier(StaticNewAdvancedCertificateVerifier.builder().setTrustAllRPKs().build());
+            break;
+        case X509:
+            SslContextUtil.Credentials x509 = credentials.client;
+            builder.setCertificateIdentityProvider(new SingleCertificateProvider(x509.getPrivateKey(),
+                    x509.getCertificateChain(), CertificateType.X_509));
+            builder.setAdvancedCertificateVerifier(StaticNewAdvancedCertificateVerifier.builder()
+                    .setTrustedCertificates(credentials.trustedCertificates).build());
+            break;
+        }
+        return new DTLSConnector(builder.build());
+    }
+
+    /**
+     * Run a full handshake and send one application record.
+     * 
+     * @param client the client connector
+     * @param server the address of the server
+     * @param failure the last failure, set if the handshake fails
+     * @return the latency in nanoseconds, or -1 if the handshake failed
+     */
+    private static long handshake(DTLSConnector client, InetSocketAddress server, AtomicReference<Throwable> failure)
+            throws InterruptedException {
+        client.clearConnectionState();
+        CountDownLatch sent = new CountDownLatch(1);
+        boolean[] success = new boolean[1];
+        MessageCallback callback = new MessageCallback() {
+
+            @Override
+            public void onConnecting() {
+            }
+
+            @Override
+            public void onDtlsRetransmission(int flight) {
+            }
+
+            @Override
+            public void onContextEstablished(EndpointContext context) {
+            }
+
+            @Override
+            public void onSent() {
+                success[0] = true;
+                sent.countDown();
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                failure.set(error);
+                sent.countDown();
+            }
+        };
+        long start = System.nanoTime();
+        client.send(RawData.outbound(PAYLOAD, new AddressEndpointContext(server), callback, false));
+        if (!sent.await(HANDSHAKE_TIMEOUT_SECONDS, TimeUnit.SECONDS) || !success[0]) {
+            return -1;
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static long percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.1f", nanos / 1000000.0);
+    }
+}
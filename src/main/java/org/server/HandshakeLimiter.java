@@ -0,0 +1,274 @@
+/********************************************************************************
+ * Copyright (c) 12-20-2024 Contributors to the Eclipse Foundation
+ * 
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ * 
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0, or the Eclipse Distribution License
+ * v1.0 which is available at
+ * https://www.eclipse.org/org/documents/edl-v10.php.
+ * 
+ * SPDX-License-Identifier: EPL-2.0 OR BSD-3-Clause
+ ********************************************************************************/
+
+package org.server;
+
+import java.net.DatagramPacket;
+import java.net.InetSocketAddress;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.californium.elements.config.Configuration;
+import org.eclipse.californium.scandium.DatagramFilter;
+import org.eclipse.californium.scandium.DtlsDatagramFilter;
+import org.eclipse.californium.scandium.MdcConnectionListener;
+import org.eclipse.californium.scandium.dtls.Connection;
+import org.eclipse.californium.scandium.dtls.Record;
+
+/**
+ * Admission control of the DTLS handshakes.
+ * 
+ * The limiter is set as datagram filter and connection listener of the DTLS
+ * connector. It inspects the datagrams on the receiver threads, before any
+ * work is passed to the executor of the connector. A CLIENT_HELLO with a
+ * cookie starts a handshake, which is pending until the connection is
+ * established, removed or the handshake expires after
+ * {@link ServerConfig#DTLS_HANDSHAKE_TIMEOUT}. A CLIENT_HELLO without a
+ * cookie is always passed, the stateless cookie exchange is cheap and proves
+ * the address of the client.
+ * 
+ * If {@link ServerConfig#DTLS_MAX_PENDING_HANDSHAKES} handshakes are
+ * pending, the CLIENT_HELLOs of new handshakes are dropped. The clients
+ * retransmit them with their backoff, so a reconnection storm is spread over
+ * time and the records of the established connections are not stuck behind
+ * the handshakes in the queue of the executor.
+ */
+public class HandshakeLimiter extends MdcConnectionListener implements DatagramFilter {
+
+    /*
+     * Layout of a datagram starting with a CLIENT_HELLO (RFC 6347), offsets
+     * from the start of the datagram:
+     * 
+     * record header (13 bytes)
+     *   0      content type, 22 handshake
+     *   1-2    version
+     *   3-4    epoch, 0 for a new handshake
+     *   5-10   sequence number
+     *   11-12  length of the record
+     * handshake header (12 bytes)
+     *   13     handshake type, 1 client_hello
+     *   14-16  length of the message
+     *   17-18  message sequence
+     *   19-21  fragment offset, 0 for the first fragment
+     *   22-24  fragment length
+     * client_hello
+     *   25-26  client_version
+     *   27-58  random
+     *   59     session_id length n, followed by the session_id
+     *   60+n   cookie length, 0 before the HELLO_VERIFY_REQUEST
+     */
+    private static final int CONTENT_TYPE_HANDSHAKE = 22;
+    private static final int HANDSHAKE_TYPE_CLIENT_HELLO = 1;
+    private static final int EPOCH_OFFSET = 3;
+    private static final int RECORD_LENGTH_OFFSET = 11;
+    private static final int RECORD_HEADER_LENGTH = 13;
+    private static final int HANDSHAKE_TYPE_OFFSET = RECORD_HEADER_LENGTH;
+    private static final int FRAGMENT_OFFSET_OFFSET = RECORD_HEADER_LENGTH + 6;
+    private static final int FRAGMENT_LENGTH_OFFSET = RECORD_HEADER_LENGTH + 9;
+    private static final int HANDSHAKE_HEADER_LENGTH = 12;
+    private static final int BODY_OFFSET = RECORD_HEADER_LENGTH + HANDSHAKE_HEADER_LENGTH;
+    // client_version and random
+    private static final int SESSION_ID_OFFSET = BODY_OFFSET + 2 + 32;
+
+    private final DatagramFilter filter;
+    private final int maxPending;
+    private final long timeoutNanos;
+    // peer address to start of the handshake
+    private final Map<InetSocketAddress, Long> pending = new ConcurrentHashMap<>();
+    private final AtomicLong started = new AtomicLong();
+    private final AtomicLong established = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong expired = new AtomicLong();
+    private final AtomicLong removed = new AtomicLong();
+    private final AtomicLong nextSweep = new AtomicLong(System.nanoTime());
+    private long durationNanos;
+    private long maxDurationNanos;
+
+    /**
+     * Create the handshake limiter from the configuration.
+     * 
+     * @param config the configuration
+     */
+    public HandshakeLimiter(Configuration config) {
+        this.filter = new DtlsDatagramFilter(config);
+        this.maxPending = config.get(ServerConfig.DTLS_MAX_PENDING_HANDSHAKES);
+        this.timeoutNanos = config.get(ServerConfig.DTLS_HANDSHAKE_TIMEOUT, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public boolean onReceiving(DatagramPacket packet) {
+        if (!filter.onReceiving(packet)) {
+            return false;
+        }
+        if (!isClientHelloWithCookie(packet.getData(), packet.getOffset(), packet.getLength())) {
+            return true;
+        }
+        InetSocketAddress peer = (InetSocketAddress) packet.getSocketAddress();
+        long now = System.nanoTime();
+        if (pending.containsKey(peer)) {
+            // retransmitted flight
+            return true;
+        }
+        expire(now, false);
+        if (maxPending > 0 && pending.size() >= maxPending) {
+            expire(now, true);
+            if (pending.size() >= maxPending) {
+                rejected.incrementAndGet();
+                return false;
+            }
+        }
+        if (pending.putIfAbsent(peer, now) == null) {
+            started.incrementAndGet();
+        }
+        return true;
+    }
+
+    @Override
+    public boolean onReceiving(Record record, Connection connection) {
+        return filter.onReceiving(record, connection);
+    }
+
+    @Override
+    public boolean onMacError(Record record, Connection connection) {
+        return filter.onMacError(record, connection);
+    }
+
+    @Override
+    public void onDrop(DatagramPacket packet) {
+        filter.onDrop(packet);
+    }
+
+    @Override
+    public void onDrop(Record record) {
+        filter.onDrop(record);
+    }
+
+    @Override
+    public void onConnectionEstablished(Connection connection) {
+        super.onConnectionEstablished(connection);
+        Long start = pending.remove(connection.getPeerAddress());
+        if (start != null) {
+            established.incrementAndGet();
+            long duration = System.nanoTime() - start;
+            synchronized (this) {
+                durationNanos += duration;
+                maxDurationNanos = Math.max(maxDurationNanos, duration);
+            }
+        }
+    }
+
+    @Override
+    public void onConnectionRemoved(Connection connection) {
+        super.onConnectionRemoved(connection);
+        if (connection.getPeerAddress() != null && pending.remove(connection.getPeerAddress()) != null) {
+            removed.incrementAndGet();
+        }
+    }
+
+    /**
+     * Get the statistics as a string.
+     * 
+     * @return the statistics as a string
+     */
+    public String getStats() {
+        StringBuilder stats = new StringBuilder();
+        long count = established.get();
+        stats.append("handshakes_pending;").append(pending.size()).append("\n");
+        stats.append("handshakes_started;").append(started.get()).append("\n");
+        stats.append("handshakes_established;").append(count).append("\n");
+        stats.append("handshakes_rejected;").append(rejected.get()).append("\n");
+        stats.append("handshakes_expired;").append(expired.get()).append("\n");
+        stats.append("handshakes_removed;").append(removed.get()).append("\n");
+        synchronized (this) {
+            stats.append("handshake_avg_ms;").append(count == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(durationNanos / count))
+                    .append("\n");
+            stats.append("handshake_max_ms;").append(TimeUnit.NANOSECONDS.toMillis(maxDurationNanos));
+        }
+        return stats.toString();
+    }
+
+    /**
+     * Remove the handshakes, which did not complete in time.
+     * 
+     * @param now the current time in nanoseconds
+     * @param force {@code true} to sweep now, {@code false} to sweep at most
+     *            once per timeout
+     */
+    private void expire(long now, boolean force) {
+        long next = nextSweep.get();
+        if (force || (now - next >= 0 && nextSweep.compareAndSet(next, now + timeoutNanos))) {
+            pending.values().removeIf(start -> {
+                if (now - start > timeoutNanos) {
+                    expired.incrementAndGet();
+                    return true;
+                }
+                return false;
+            });
+        }
+    }
+
+    /**
+     * Check, if the datagram starts with a CLIENT_HELLO, which echoes the
+     * cookie of a HELLO_VERIFY_REQUEST.
+     * 
+     * @param data the data of the datagram
+     * @param offset the offset of the datagram in the data
+     * @param length the length of the datagram
+     * A datagram which is too short, a record of another epoch and a
+     * CLIENT_HELLO without a cookie are no CLIENT_HELLO with cookie. The
+     * cookie length must be within the datagram, the first record and the
+     * first fragment, so a fragmented CLIENT_HELLO whose first fragment ends
+     * before the cookie and its further fragments are passed as well.
+     * 
+     * @param data the data of the datagram
+     * @param offset the offset of the datagram in the data
+     * @param length the length of the datagram
+     * @return {@code true}, if the first record is the first fragment of a
+     *         CLIENT_HELLO of epoch 0 with a cookie
+     */
+    static boolean isClientHelloWithCookie(byte[] data, int offset, int length) {
+        if (length <= SESSION_ID_OFFSET || (data[offset] & 0xff) != CONTENT_TYPE_HANDSHAKE
+                || uint(data, offset + EPOCH_OFFSET, 2) != 0
+                || (data[offset + HANDSHAKE_TYPE_OFFSET] & 0xff) != HANDSHAKE_TYPE_CLIENT_HELLO
+                || uint(data, offset + FRAGMENT_OFFSET_OFFSET, 3) != 0) {
+            return false;
+        }
+        int end = Math.min(length, RECORD_HEADER_LENGTH + uint(data, offset + RECORD_LENGTH_OFFSET, 2));
+        end = Math.min(end, BODY_OFFSET + uint(data, offset + FRAGMENT_LENGTH_OFFSET, 3));
+        if (end <= SESSION_ID_OFFSET) {
+            return false;
+        }
+        int cookie = SESSION_ID_OFFSET + 1 + (data[offset + SESSION_ID_OFFSET] & 0xff);
+        return cookie < end && data[offset + cookie] != 0;
+    }
+
+    /**
+     * Read a big endian unsigned integer.
+     * 
+     * @param data the data
+     * @param offset the offset of the integer
+     * @param length the number of bytes, at most 3
+     * @return the integer
+     */
+    private static int uint(byte[] data, int offset, int length) {
+        int value = 0;
+        for (int index = 0; index < length; index++) {
+            value = (value << 8) | (data[offset + index] & 0xff);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,97 @@
+/********************************************************************************
+ * Copyright (c) 12-20-2024 Contributors to the Eclipse Foundation
+ * 
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ * 
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0, or the Eclipse Distribution License
+ * v1.0 which is available at
+ * https://www.eclipse.org/org/documents/edl-v10.php.
+ * 
+ * SPDX-License-Identifier: EPL-2.0 OR BSD-3-Clause
+ ********************************************************************************/
+
+package org.server;
+
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.californium.elements.Connector;
+import org.eclipse.californium.elements.RawData;
+import org.eclipse.californium.elements.RawDataChannel;
+
+/**
+ * Connector which applies the {@link NetworkImpairment} to the datagrams of
+ * an endpoint.
+ * 
+ * The impairments are applied where the connector exchanges the datagrams
+ * with the endpoint. For a DTLS connector this is above the record layer,
+ * so the handshakes are not impaired.
+ */
+public class ImpairedConnector extends ConnectorWrapper {
+
+    private final NetworkImpairment impairment;
+
+    /**
+     * Impair the datagrams of a connector.
+     * 
+     * @param connector the connector of the endpoint
+     * @param impairment the impairments
+     */
+    public ImpairedConnector(Connector connector, NetworkImpairment impairment) {
+        super(connector);
+        this.impairment = impairment;
+    }
+
+    @Override
+    public void send(final RawData msg) {
+        long[] delays = impairment.apply(msg.getInetSocketAddress(), false);
+        if (delays == NetworkImpairment.PASS) {
+            connector.send(msg);
+        } else if (delays == NetworkImpairment.DROP) {
+            // lost on the way, for the endpoint the datagram was sent
+            msg.onContextEstablished(msg.getEndpointContext());
+            msg.onSent();
+        } else {
+            for (int index = 0; index < delays.length; index++) {
+                // only the first copy reports to the endpoint
+                final RawData copy = index == 0 ? msg
+                        : RawData.outbound(msg.getBytes(), msg.getEndpointContext(), null, msg.isMulticast());
+                impairment.getExecutor().schedule(new Runnable() {
+
+                    @Override
+                    public void run() {
+                        connector.send(copy);
+                    }
+                }, delays[index], TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    @Override
+    public void setRawDataReceiver(final RawDataChannel messageHandler) {
+        connector.setRawDataReceiver(new RawDataChannel() {
+
+            @Override
+            public void receiveData(final RawData msg) {
+                long[] delays = impairment.apply(msg.getInetSocketAddress(), true);
+                if (delays == NetworkImpairment.PASS) {
+                    messageHandler.receiveData(msg);
+                    return;
+                }
+                for (long delay : delays) {
+                    impairment.getExecutor().schedule(new Runnable() {
+
+                        @Override
+                        public void run() {
+                            // received now, as far as the endpoint can tell
+                            messageHandler.receiveData(RawData.inbound(msg.getBytes(), msg.getEndpointContext(),
+                                    msg.isMulticast(), System.nanoTime(), msg.getConnectorAddress()));
+                        }
+                    }, delay, TimeUnit.NANOSECONDS);
+                }
+            }
+        });
+    }
+}
@@ -54,8 +54,8 @@ public class LargeDownloadResource extends CoapResource {
     public void handlePUT(CoapExchange exchange) {
 
         // Log the request
-        System.out.println(ServerTimestamp.getElapsedTime()+"Received PUT, Resource: largedownload, Payload: " + new String(exchange.getRequestPayload()));
-        this.sharedData.globalCnt++;
+        ServerLog.info("Received PUT, Resource: largedownload, Payload: " + new String(exchange.getRequestPayload()));
+        this.sharedData.counters.increment("largedownload");
 
         // Get the payload
         String receivedData = new String(exchange.getRequestPayload());
@@ -69,6 +69,11 @@ public class LargeDownloadResource extends CoapResource {
         try {
             String number = parts[1];
             int size = Integer.parseInt(parts[2]);
+            if (size > sharedData.config.get().largePayloadMax) {
+                exchange.respond(ResponseCode.BAD_REQUEST, "Size too large");
+                ServerLog.info("Sent Error");
+                return;
+            }
 
             String header = "/" + number + "/\n";
             String footer = "/largedownload/";
@@ -80,19 +85,15 @@ public class LargeDownloadResource extends CoapResource {
             String formattedContent = randomChars.toString().replaceAll("(.{80})", "$1\n");
             String response = header + formattedContent + "\n" + footer;
 
-            //wait for 20 - 50 ms to simulate prossesing and latency
-            try {
-                Thread.sleep((long) (Math.random() * 30 + 20));
-            } catch (InterruptedException e) {
-                e.printStackTrace();
-            }
+            //wait for the configured time to simulate prossesing and latency
+            sharedData.latency.simulate();
 
             // Send the response
             exchange.respond(ResponseCode.CHANGED, response.getBytes());
-            System.out.println(ServerTimestamp.getElapsedTime()+"Sent Response, Resource: largedownload");
+            ServerLog.info("Sent Response, Resource: largedownload");
         } catch (NumberFormatException e) {
             exchange.respond(ResponseCode.BAD_REQUEST, "Invalid format");
-            System.out.println(ServerTimestamp.getElapsedTime()+"Sent Error");
+            ServerLog.info("Sent Error");
         }
     }
 }
\ No newline at end of file
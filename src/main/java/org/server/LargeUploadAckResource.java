@@ -52,23 +52,26 @@ public class LargeUploadAckResource extends CoapResource {
     public void handlePUT(CoapExchange exchange) {
 
         // Log the request
-        System.out.println(ServerTimestamp.getElapsedTime()+"Received PUT, Resource: largeuploadack, Payload: " + new String(exchange.getRequestPayload(), 0, Math.min(20, exchange.getRequestPayload().length)) + (exchange.getRequestPayload().length > 20 ? "..." : ""));
+        ServerLog.info("Received PUT, Resource: largeuploadack, Payload: " + ServerLog.payload(exchange.getRequestPayload()));
+
+        // Check the payload size
+        if (exchange.getRequestPayload().length > sharedData.config.get().largePayloadMax) {
+            exchange.respond(ResponseCode.REQUEST_ENTITY_TOO_LARGE);
+            ServerLog.info("Sent Error");
+            return;
+        }
         
         // Increment the global counter
-        this.sharedData.globalCnt++;
+        this.sharedData.counters.increment("largeuploadack");
 
         // Get the payload
         content = exchange.getRequestPayload();
 
-        //wait for 20 - 50 ms to simulate prossesing and latency
-        try {
-            Thread.sleep((long) (Math.random() * 30 + 20));
-        } catch (InterruptedException e) {
-            e.printStackTrace();
-        }
+        //wait for the configured time to simulate prossesing and latency
+        sharedData.latency.simulate();
 
         // Send the response
         exchange.respond(ResponseCode.CHANGED, ("Received: " + new String(content, 0, Math.min(8, content.length))).getBytes());
-        System.out.println(ServerTimestamp.getElapsedTime()+"Sent Response, Resource: largeuploadack");
+        ServerLog.info("Sent Response, Resource: largeuploadack");
     }
 }
\ No newline at end of file
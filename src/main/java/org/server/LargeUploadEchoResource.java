@@ -53,19 +53,22 @@ public class LargeUploadEchoResource extends CoapResource {
     public void handlePUT(CoapExchange exchange) {
 
         // Log the request
-        System.out.println(ServerTimestamp.getElapsedTime()+"Received PUT, Resource: largeuploadecho, Payload: " + new String(exchange.getRequestPayload(), 0, Math.min(20, exchange.getRequestPayload().length)) + (exchange.getRequestPayload().length > 20 ? "..." : ""));
-        this.sharedData.globalCnt++;
+        ServerLog.info("Received PUT, Resource: largeuploadecho, Payload: " + ServerLog.payload(exchange.getRequestPayload()));
+
+        // Check the payload size
+        if (exchange.getRequestPayload().length > sharedData.config.get().largePayloadMax) {
+            exchange.respond(ResponseCode.REQUEST_ENTITY_TOO_LARGE);
+            ServerLog.info("Sent Error");
+            return;
+        }
+        this.sharedData.counters.increment("largeuploadecho");
         content = exchange.getRequestPayload();
         
-        //wait for 20 - 50 ms to simulate prossesing and latency
-        try {
-            Thread.sleep((long) (Math.random() * 30 + 20));
-        } catch (InterruptedException e) {
-            e.printStackTrace();
-        }
+        //wait for the configured time to simulate prossesing and latency
+        sharedData.latency.simulate();
 
         // Send the response
         exchange.respond(ResponseCode.CHANGED, ("Received: " + new String(content)).getBytes());
-        System.out.println(ServerTimestamp.getElapsedTime()+"Sent Response, Resource: largeuploadecho");
+        ServerLog.info("Sent Response, Resource: largeuploadecho");
     }
 }
\ No newline at end of file
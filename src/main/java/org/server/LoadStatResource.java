@@ -0,0 +1,62 @@
+/********************************************************************************
+ * Copyright (c) 12-20-2024 Contributors to the Eclipse Foundation
+ * 
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ * 
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0, or the Eclipse Distribution License
+ * v1.0 which is available at
+ * https://www.eclipse.org/org/documents/edl-v10.php.
+ * 
+ * SPDX-License-Identifier: EPL-2.0 OR BSD-3-Clause
+ ********************************************************************************/
+
+package org.server;
+
+import org.eclipse.californium.core.CoapResource;
+import org.eclipse.californium.core.coap.CoAP.ResponseCode;
+import org.eclipse.californium.core.server.resources.CoapExchange;
+
+
+/**
+ * LoadStatResource is a CoAP resource that provides the load shedding statistics.
+ * 
+ * It reports the current concurrency limit, the smoothed service time, the number
+ * of requests in flight, the executor queue depth and the rejections per priority,
+ * followed by the admission of the DTLS handshakes.
+ */
+public class LoadStatResource extends CoapResource {
+
+    private SharedData sharedData;
+
+    /**
+     * Constructor for LoadStatResource.
+     * 
+     * @param sharedData SharedData object that contains the concurrency limiter.
+     */
+    public LoadStatResource(SharedData sharedData) {
+        // Set resource identifier
+        super("loadstat");
+        this.sharedData = sharedData;
+        // Set display name
+        getAttributes().setTitle("Load Stat Resource");
+    }
+
+    /**
+     * Handle GET requests.
+     * 
+     * @param exchange CoapExchange object that contains the request and response.
+     */
+    @Override
+    public void handleGET(CoapExchange exchange) {
+
+        // Log the request
+        ServerLog.info("Received GET, Resource: loadstat");
+
+        // Send the response
+        exchange.respond(ResponseCode.CONTENT, sharedData.concurrency.getStats() + "\n" + sharedData.handshakes.getStats());
+        ServerLog.info("Sent Response, Resource: loadstat");
+    }
+}
@@ -15,24 +15,44 @@
 
 package org.server;
 
+import java.io.File;
 import java.io.IOException;
+import java.net.InetAddress;
 import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
 import java.security.GeneralSecurityException;
 import java.security.cert.Certificate;
+import java.text.ParseException;
+import java.util.Properties;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+
+import javax.net.ssl.SSLContext;
 
 import org.eclipse.californium.core.CoapResource;
 import org.eclipse.californium.core.CoapServer;
 import org.eclipse.californium.core.coap.CoAP.ResponseCode;
 import org.eclipse.californium.core.config.CoapConfig;
+import org.eclipse.californium.core.config.CoapConfig.CongestionControlMode;
 import org.eclipse.californium.core.network.CoapEndpoint;
 import org.eclipse.californium.core.network.Endpoint;
 import org.eclipse.californium.core.network.interceptors.MessageTracer;
 import org.eclipse.californium.core.server.resources.CoapExchange;
+import org.eclipse.californium.elements.Connector;
+import org.eclipse.californium.elements.UDPConnector;
+import org.eclipse.californium.elements.UdpMulticastConnector;
+import org.eclipse.californium.elements.config.CertificateAuthenticationMode;
 import org.eclipse.californium.elements.config.Configuration;
 import org.eclipse.californium.elements.config.Configuration.DefinitionsProvider;
+import org.eclipse.californium.elements.config.EnumDefinition;
+import org.eclipse.californium.elements.config.TcpConfig;
+import org.eclipse.californium.elements.tcp.netty.TcpServerConnector;
+import org.eclipse.californium.elements.tcp.netty.TlsServerConnector;
+import org.eclipse.californium.elements.util.ExecutorsUtil;
+import org.eclipse.californium.elements.util.NamedThreadFactory;
 import org.eclipse.californium.elements.util.SslContextUtil;
 import org.eclipse.californium.scandium.DTLSConnector;
-import org.eclipse.californium.scandium.MdcConnectionListener;
+import org.eclipse.californium.scandium.DtlsClusterConnector;
+import org.eclipse.californium.scandium.config.DtlsClusterConnectorConfig;
 import org.eclipse.californium.scandium.config.DtlsConfig;
 import org.eclipse.californium.scandium.config.DtlsConnectorConfig;
 import org.eclipse.californium.scandium.config.DtlsConfig.DtlsRole;
@@ -41,6 +61,7 @@ import org.eclipse.californium.scandium.dtls.pskstore.AdvancedMultiPskStore;
 import org.eclipse.californium.scandium.dtls.x509.SingleCertificateProvider;
 import org.eclipse.californium.scandium.dtls.x509.StaticNewAdvancedCertificateVerifier;
 import org.eclipse.californium.scandium.dtls.CertificateType;
+import org.eclipse.californium.scandium.dtls.MultiNodeConnectionIdGenerator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -48,14 +69,20 @@ import org.slf4j.LoggerFactory;
  * Main class to start the CoAP and CoAPs server.
  * 
  * This class initializes the server with various resources and endpoints.
- * It supports both CoAP and CoAPs protocols. The server configuration is
- * loaded from a file and customized using a DefinitionsProvider.
+ * It supports both CoAP and CoAPs protocols, over UDP/DTLS and, if enabled,
+ * over TCP/TLS (RFC 8323) with BERT blocks for the large packet resources.
+ * The server configuration is loaded from a file and customized using a
+ * DefinitionsProvider.
  */
 public class Main {
 
     private static final Logger LOG = LoggerFactory.getLogger(Main.class.getName());
+    static final String PSK_IDENTITY = "twttestbed";
+    private static final String PSK_KEY = "secretkey";
     private static final int COAP_PORT = 5683;
     private static final int COAPS_PORT = 5684;
+    private static final int NODE_PORT_STEP = 10;
+    private static final int CLUSTER_CONNECTION_ID_LENGTH = 6;
     private static final char[] KEY_STORE_PASSWORD = "endPass".toCharArray();
     private static final String KEY_STORE_LOCATION = "certs/keyStore.jks";
     private static final char[] TRUST_STORE_PASSWORD = "rootPass".toCharArray();
@@ -64,6 +91,8 @@ public class Main {
     static {
         CoapConfig.register();
         DtlsConfig.register();
+        TcpConfig.register();
+        ServerConfig.register();
     }
 
     private static DefinitionsProvider DEFAULTS = new DefinitionsProvider() {
@@ -72,16 +101,214 @@ public class Main {
             config.set(DtlsConfig.DTLS_ROLE, DtlsRole.SERVER_ONLY);
             config.set(DtlsConfig.DTLS_RECOMMENDED_CIPHER_SUITES_ONLY, false);
             config.set(DtlsConfig.DTLS_PRESELECTED_CIPHER_SUITES, CipherSuite.STRONG_ENCRYPTION_PREFERENCE);
+            config.set(CoapConfig.TCP_NUMBER_OF_BULK_BLOCKS, 4); // BERT, 4 blocks of 1024 bytes per message
+            config.set(TcpConfig.TLS_CLIENT_AUTHENTICATION_MODE, CertificateAuthenticationMode.WANTED);
         }
     };
 
     public static void main(String[] args) {
+        Configuration configuration = loadConfiguration(args);
+
+        CoapServer server = new CoapServer();
+        SharedData sharedData = createServer(server, configuration);
+
+        // Reload the runtime settings when the configuration file changes
+        if (configuration.get(ServerConfig.CONFIG_WATCH_FILE)) {
+            try {
+                sharedData.config.watch(Configuration.DEFAULT_FILE);
+            } catch (IOException e) {
+                LOG.error("Could not watch the configuration file", e);
+            }
+        }
+
+        // In a cluster, each node listens on its own ports
+        ClusterNode cluster = sharedData.cluster;
+        int coapPort = COAP_PORT + NODE_PORT_STEP * cluster.getNodeId();
+        int coapsPort = COAPS_PORT + NODE_PORT_STEP * cluster.getNodeId();
+        if (cluster.isEnabled() && configuration.get(DtlsConfig.DTLS_CONNECTION_ID_LENGTH) == null) {
+            // the connection IDs encode the node, a single node negotiates none
+            configuration.set(DtlsConfig.DTLS_CONNECTION_ID_LENGTH, CLUSTER_CONNECTION_ID_LENGTH);
+        }
+        try {
+            cluster.start();
+        } catch (IOException e) {
+            LOG.error("Could not start the cluster node", e);
+        }
+
+        // Record the received datagrams for a later replay
+        TrafficRecorder recorder = null;
+        String recordFile = configuration.get(ServerConfig.RECORD_FILE);
+        if (recordFile != null && !recordFile.isEmpty()) {
+            try {
+                recorder = new TrafficRecorder(new File(recordFile), sharedData.clock);
+                System.out.println(ServerTimestamp.getElapsedTime() + "Recording to " + recordFile);
+            } catch (IOException e) {
+                LOG.error("Could not create the recording", e);
+            }
+        }
+
+        // Deduplication and exchange lifetime of the UDP and DTLS endpoints
+        System.out.println(ServerTimestamp.getElapsedTime() + "Deduplicator: " + configuration.get(CoapConfig.DEDUPLICATOR)
+                + ", exchange lifetime: " + configuration.getAsText(CoapConfig.EXCHANGE_LIFETIME));
+
+        // Add CoAP endpoint
+        Configuration coapConfiguration = endpointConfiguration(configuration, ServerConfig.CONGESTION_CONTROL_COAP);
+        CoapEndpoint.Builder coapBuilder = new CoapEndpoint.Builder();
+        UDPConnector udpConnector = new UDPConnector(new InetSocketAddress(coapPort), coapConfiguration);
+        coapBuilder.setConnector(record(impair(udpConnector, sharedData), "coap", recorder));
+        coapBuilder.setConfiguration(coapConfiguration);
+        CoapEndpoint coapEndpoint = coapBuilder.build();
+        coapEndpoint.addInterceptor(sharedData.blockSize);
+        coapEndpoint.addInterceptor(sharedData.wake);
+        addRttEstimator(coapEndpoint, "coap", coapConfiguration, sharedData);
+        server.addEndpoint(coapEndpoint);
+
+        // Receive requests to the multicast group and command the actuator groups with one transmission
+        InetSocketAddress multicastGroup = null;
+        String multicast = configuration.get(ServerConfig.MULTICAST_GROUP);
+        if (multicast != null && !multicast.isEmpty()) {
+            try {
+                multicastGroup = new InetSocketAddress(InetAddress.getByName(multicast), coapPort);
+                UdpMulticastConnector multicastConnector = new UdpMulticastConnector.Builder()
+                        .setLocalAddress(multicastGroup.getAddress(), coapPort)
+                        .addMulticastGroup(multicastGroup.getAddress())
+                        .setMulticastReceiver(true)
+                        .setConfiguration(coapConfiguration).build();
+                udpConnector.setReuseAddress(true);
+                udpConnector.addMulticastReceiver(multicastConnector);
+                ((ActuatorGroupResource) server.getRoot().getChild("actuatorgroup")).setMulticast(coapEndpoint, multicastGroup);
+            } catch (UnknownHostException e) {
+                LOG.error("Invalid multicast group " + multicast, e);
+                multicastGroup = null;
+            }
+        }
+
+        // Add CoAP over TCP endpoint
+        boolean tcp = configuration.get(ServerConfig.TCP_ENABLED);
+        if (tcp) {
+            CoapEndpoint.Builder coapTcpBuilder = new CoapEndpoint.Builder();
+            coapTcpBuilder.setConnector(new TcpServerConnector(new InetSocketAddress(coapPort), configuration));
+            coapTcpBuilder.setConfiguration(configuration);
+            server.addEndpoint(coapTcpBuilder.build());
+        }
+
+        // Add CoAPs endpoint
+        try {
+            SslContextUtil.Credentials serverCredentials = loadCredentials("server");
+            Certificate[] trustedCertificates = loadTrustedCertificates();
+
+            DtlsConnectorConfig.Builder dtlsBuilder = dtlsBuilder(configuration, new InetSocketAddress(coapsPort),
+                    serverCredentials, trustedCertificates, sharedData.handshakes);
+
+            DTLSConnector dtlsConnector;
+            if (cluster.isEnabled()) {
+                // Encode the node in the connection IDs and forward records of other nodes
+                dtlsBuilder.setConnectionIdGenerator(new MultiNodeConnectionIdGenerator(cluster.getNodeId(),
+                        configuration.get(DtlsConfig.DTLS_CONNECTION_ID_LENGTH)));
+                DtlsClusterConnectorConfig clusterConfig = DtlsClusterConnectorConfig.builder()
+                        .setAddress(cluster.getManagementAddress()).build();
+                dtlsConnector = new DtlsClusterConnector(dtlsBuilder.build(), clusterConfig, cluster);
+            } else {
+                dtlsConnector = new DTLSConnector(dtlsBuilder.build());
+            }
+            Configuration coapsConfiguration = endpointConfiguration(configuration, ServerConfig.CONGESTION_CONTROL_COAPS);
+            CoapEndpoint.Builder coapsBuilder = new CoapEndpoint.Builder();
+            coapsBuilder.setConnector(record(impair(dtlsConnector, sharedData), "coaps", recorder));
+            coapsBuilder.setConfiguration(coapsConfiguration);
+            CoapEndpoint coapsEndpoint = coapsBuilder.build();
+            coapsEndpoint.addInterceptor(sharedData.blockSize);
+            coapsEndpoint.addInterceptor(sharedData.wake);
+            addRttEstimator(coapsEndpoint, "coaps", coapsConfiguration, sharedData);
+            server.addEndpoint(coapsEndpoint);
+
+            // Add CoAPs over TLS endpoint
+            if (tcp) {
+                SSLContext sslContext = SslContextUtil.createSSLContext("server", serverCredentials.getPrivateKey(),
+                        serverCredentials.getCertificateChain(), trustedCertificates);
+                CoapEndpoint.Builder coapsTlsBuilder = new CoapEndpoint.Builder();
+                coapsTlsBuilder.setConnector(new TlsServerConnector(sslContext, new InetSocketAddress(coapsPort), configuration));
+                coapsTlsBuilder.setConfiguration(configuration);
+                server.addEndpoint(coapsTlsBuilder.build());
+            }
+
+        } catch (GeneralSecurityException | IOException e) {
+            LOG.error("Could not load the keystore", e);
+        }
+
+        server.start();
+
+        for (Endpoint ep : server.getEndpoints()) {
+            ep.addInterceptor(new MessageTracer());
+        }
+
+        System.out.println(ServerTimestamp.getElapsedTime()+"CoAP server is listening on port " + coapPort);
+        System.out.println(ServerTimestamp.getElapsedTime()+"CoAPs server is listening on port " + coapsPort);
+        if (sharedData.impairment.isEnabled()) {
+            System.out.println(ServerTimestamp.getElapsedTime()+"Network impairments enabled");
+        }
+        if (configuration.get(ServerConfig.PROFILE_ON_START)) {
+            try {
+                sharedData.profiler.start();
+                System.out.println(ServerTimestamp.getElapsedTime()+"Flight recording to " + configuration.get(ServerConfig.PROFILE_FILE));
+            } catch (IOException | ParseException e) {
+                LOG.error("Could not start the flight recording", e);
+            }
+        }
+        if (multicastGroup != null) {
+            System.out.println(ServerTimestamp.getElapsedTime()+"CoAP multicast group " + multicastGroup);
+        }
+        if (cluster.isEnabled()) {
+            System.out.println(ServerTimestamp.getElapsedTime()+"Cluster node " + cluster.getNodeId() + ", management address "
+                    + cluster.getManagementAddress());
+        }
+        if (tcp) {
+            System.out.println(ServerTimestamp.getElapsedTime()+"CoAP over TCP server is listening on port " + coapPort);
+            System.out.println(ServerTimestamp.getElapsedTime()+"CoAPs over TLS server is listening on port " + coapsPort);
+        }
+    }
+
+    /**
+     * Load the configuration.
+     * 
+     * @param args arguments "KEY=value", which override the configuration file
+     * @return the configuration
+     */
+    static Configuration loadConfiguration(String[] args) {
         Configuration configuration = Configuration.createWithFile(Configuration.DEFAULT_FILE, "DTLS example server", DEFAULTS);
+
+        // Arguments "KEY=value" override the configuration file
+        Properties overrides = new Properties();
+        for (String arg : args) {
+            int index = arg.indexOf('=');
+            if (index > 0) {
+                overrides.setProperty(arg.substring(0, index).trim(), arg.substring(index + 1).trim());
+            } else {
+                LOG.warn("Ignoring argument {}, expected KEY=value", arg);
+            }
+        }
+        configuration.add(overrides);
         Configuration.setStandard(configuration);
+        return configuration;
+    }
 
-        CoapServer server = new CoapServer();
+    /**
+     * Create the executors, the admission control and the resources of the server.
+     * 
+     * @param server the server, without endpoints
+     * @param configuration the configuration
+     * @return SharedData object of the resources
+     */
+    static SharedData createServer(CoapServer server, Configuration configuration) {
+        // Use own executors, so the queue depth can be reported
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(
+                configuration.get(CoapConfig.PROTOCOL_STAGE_THREAD_COUNT), new NamedThreadFactory("CoapServer(main)#"));
+        server.setExecutors(executor, ExecutorsUtil.newDefaultSecondaryScheduler("CoapServer(secondary)#"), false);
 
-        SharedData sharedData = new SharedData();
+        SharedData sharedData = new SharedData(configuration);
+        sharedData.concurrency.setQueue(executor.getQueue());
+
+        // Apply admission control before the resources handle the requests
+        server.setMessageDeliverer(new AdmissionControlDeliverer(server.getRoot(), configuration, sharedData));
 
         // Add the SensorResource
         server.add(new SensorResource(sharedData));
@@ -98,53 +325,156 @@ public class Main {
         server.add(new ActuatorResource(sharedData));
         server.add(new ActuatorEchoResource(sharedData));
         server.add(new ActuatorStatResource(sharedData));
+        server.add(new ActuatorGroupResource(sharedData, configuration));
+
+        // Add the ClockSyncResource
+        server.add(new ClockSyncResource());
 
         // Add the ValidateResource
         server.add(new ValidateResource(sharedData));
 
+        // Add the ThrottleStatResource
+        server.add(new ThrottleStatResource(sharedData));
 
-        // Add CoAP endpoint
-        CoapEndpoint.Builder coapBuilder = new CoapEndpoint.Builder();
-        coapBuilder.setInetSocketAddress(new InetSocketAddress(COAP_PORT));
-        coapBuilder.setConfiguration(configuration);
-        server.addEndpoint(coapBuilder.build());
+        // Add the LoadStatResource
+        server.add(new LoadStatResource(sharedData));
 
-        // Add CoAPs endpoint
-        try {
-            AdvancedMultiPskStore pskStore = new AdvancedMultiPskStore();
-            pskStore.setKey("twttestbed", "secretkey".getBytes());
-
-            SslContextUtil.Credentials serverCredentials = SslContextUtil.loadCredentials(
-                    SslContextUtil.CLASSPATH_SCHEME + KEY_STORE_LOCATION, "server", KEY_STORE_PASSWORD, KEY_STORE_PASSWORD);
-            Certificate[] trustedCertificates = SslContextUtil.loadTrustedCertificates(
-                    SslContextUtil.CLASSPATH_SCHEME + TRUST_STORE_LOCATION, "root", TRUST_STORE_PASSWORD);
-
-            DtlsConnectorConfig.Builder dtlsBuilder = DtlsConnectorConfig.builder(configuration)
-                    .setAddress(new InetSocketAddress(COAPS_PORT))
-                    .setAdvancedPskStore(pskStore)
-                    .setCertificateIdentityProvider(new SingleCertificateProvider(
-                            serverCredentials.getPrivateKey(), serverCredentials.getCertificateChain(), CertificateType.RAW_PUBLIC_KEY, CertificateType.X_509))
-                    .setAdvancedCertificateVerifier(StaticNewAdvancedCertificateVerifier.builder()
-                            .setTrustedCertificates(trustedCertificates).setTrustAllRPKs().build())
-                    .setConnectionListener(new MdcConnectionListener());
-
-            DTLSConnector dtlsConnector = new DTLSConnector(dtlsBuilder.build());
-            CoapEndpoint.Builder coapsBuilder = new CoapEndpoint.Builder();
-            coapsBuilder.setConnector(dtlsConnector);
-            coapsBuilder.setConfiguration(configuration);
-            server.addEndpoint(coapsBuilder.build());
+        // Add the BlockSizeResource
+        server.add(new BlockSizeResource(sharedData));
 
-        } catch (GeneralSecurityException | IOException e) {
-            LOG.error("Could not load the keystore", e);
+        // Add the RttStatResource
+        server.add(new RttStatResource(sharedData));
+
+        // Add the WakeStatResource
+        server.add(new WakeStatResource(sharedData));
+
+        // Add the ImpairStatResource
+        if (sharedData.impairment.isEnabled()) {
+            server.add(new ImpairStatResource(sharedData));
         }
 
-        server.start();
+        // Add the ConfigResource
+        server.add(new ConfigResource(sharedData));
 
-        for (Endpoint ep : server.getEndpoints()) {
-            ep.addInterceptor(new MessageTracer());
+        // Add the ProfileResource
+        server.add(new ProfileResource(sharedData));
+        return sharedData;
+    }
+
+    /**
+     * Load the credentials of the demo key store.
+     * 
+     * @param alias the alias of the credentials, "server" or "client"
+     * @return the credentials
+     * @throws GeneralSecurityException if the credentials could not be read
+     * @throws IOException if the key store could not be read
+     */
+    static SslContextUtil.Credentials loadCredentials(String alias) throws GeneralSecurityException, IOException {
+        return SslContextUtil.loadCredentials(SslContextUtil.CLASSPATH_SCHEME + KEY_STORE_LOCATION, alias,
+                KEY_STORE_PASSWORD, KEY_STORE_PASSWORD);
+    }
+
+    /**
+     * Load the trusted root certificates of the demo trust store.
+     * 
+     * @return the trusted certificates
+     * @throws GeneralSecurityException if the certificates could not be read
+     * @throws IOException if the trust store could not be read
+     */
+    static Certificate[] loadTrustedCertificates() throws GeneralSecurityException, IOException {
+        return SslContextUtil.loadTrustedCertificates(SslContextUtil.CLASSPATH_SCHEME + TRUST_STORE_LOCATION, "root",
+                TRUST_STORE_PASSWORD);
+    }
+
+    /**
+     * Create the configuration builder of the DTLS server connector.
+     * 
+     * PSK, RPK and X.509 are enabled. Besides the identity of the testbed
+     * stations, the PSK store holds the control identity, if configured.
+     * The handshake limiter is set as
+     * datagram filter and connection listener.
+     * 
+     * @param configuration the configuration
+     * @param address the address of the connector
+     * @param serverCredentials the credentials of the server
+     * @param trustedCertificates the trusted root certificates
+     * @param handshakes the handshake limiter
+     * @return the builder
+     */
+    static DtlsConnectorConfig.Builder dtlsBuilder(Configuration configuration, InetSocketAddress address,
+            SslContextUtil.Credentials serverCredentials, Certificate[] trustedCertificates, HandshakeLimiter handshakes) {
+        AdvancedMultiPskStore pskStore = new AdvancedMultiPskStore();
+        pskStore.setKey(PSK_IDENTITY, PSK_KEY.getBytes());
+        // the control identity has its own key, the stations share theirs
+        String controlIdentity = configuration.get(ServerConfig.CONFIG_PSK_IDENTITY);
+        String controlKey = configuration.get(ServerConfig.CONFIG_PSK_KEY);
+        if (controlIdentity != null && !controlIdentity.isEmpty() && !controlIdentity.equals(PSK_IDENTITY)
+                && controlKey != null && !controlKey.isEmpty()) {
+            pskStore.setKey(controlIdentity, controlKey.getBytes());
         }
 
-        System.out.println(ServerTimestamp.getElapsedTime()+"CoAP server is listening on port " + COAP_PORT);
-        System.out.println(ServerTimestamp.getElapsedTime()+"CoAPs server is listening on port " + COAPS_PORT);
+        return DtlsConnectorConfig.builder(configuration)
+                .setAddress(address)
+                .setAdvancedPskStore(pskStore)
+                .setCertificateIdentityProvider(new SingleCertificateProvider(
+                        serverCredentials.getPrivateKey(), serverCredentials.getCertificateChain(), CertificateType.RAW_PUBLIC_KEY, CertificateType.X_509))
+                .setAdvancedCertificateVerifier(StaticNewAdvancedCertificateVerifier.builder()
+                        .setTrustedCertificates(trustedCertificates).setTrustAllRPKs().build())
+                .setDatagramFilter(handshakes)
+                .setConnectionListener(handshakes);
+    }
+
+    /**
+     * Record the datagrams received by a connector.
+     * 
+     * @param connector the connector
+     * @param name the name of the endpoint
+     * @param recorder the recorder, or {@code null} if not recording
+     * @return the recording connector, or the connector if not recording
+     */
+    private static Connector record(Connector connector, String name, TrafficRecorder recorder) {
+        return recorder == null ? connector : new RecordingConnector(connector, name, recorder);
+    }
+
+    /**
+     * Apply the network impairments to the datagrams of a connector.
+     * 
+     * @param connector the connector
+     * @param sharedData SharedData object with the network impairments
+     * @return the impaired connector, or the connector without impairments
+     */
+    private static Connector impair(Connector connector, SharedData sharedData) {
+        return sharedData.impairment.isEnabled() ? new ImpairedConnector(connector, sharedData.impairment) : connector;
+    }
+
+    /**
+     * Create the configuration of an endpoint with its own congestion control algorithm.
+     * 
+     * @param configuration the server configuration
+     * @param algorithm the definition of the congestion control algorithm of the endpoint
+     * @return the configuration of the endpoint
+     */
+    private static Configuration endpointConfiguration(Configuration configuration,
+            EnumDefinition<CongestionControlMode> algorithm) {
+        Configuration endpoint = new Configuration(configuration);
+        endpoint.set(CoapConfig.CONGESTION_CONTROL_ALGORITHM, configuration.get(algorithm));
+        return endpoint;
+    }
+
+    /**
+     * Add a round trip time estimator to an endpoint.
+     * 
+     * @param endpoint the endpoint
+     * @param name the name of the endpoint
+     * @param configuration the configuration of the endpoint
+     * @param sharedData SharedData object that collects the estimators
+     */
+    private static void addRttEstimator(CoapEndpoint endpoint, String name, Configuration configuration,
+            SharedData sharedData) {
+        RttEstimator estimator = new RttEstimator(name, configuration);
+        endpoint.addInterceptor(estimator);
+        sharedData.rtt.add(estimator);
+        System.out.println(ServerTimestamp.getElapsedTime() + "Congestion control of " + name + ": "
+                + configuration.get(CoapConfig.CONGESTION_CONTROL_ALGORITHM));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,191 @@
+/********************************************************************************
+ * Copyright (c) 12-20-2024 Contributors to the Eclipse Foundation
+ * 
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ * 
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0, or the Eclipse Distribution License
+ * v1.0 which is available at
+ * https://www.eclipse.org/org/documents/edl-v10.php.
+ * 
+ * SPDX-License-Identifier: EPL-2.0 OR BSD-3-Clause
+ ********************************************************************************/
+
+package org.server;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import org.eclipse.californium.core.coap.CoAP.ResponseCode;
+import org.eclipse.californium.core.coap.CoAP.Type;
+import org.eclipse.californium.core.coap.Request;
+import org.eclipse.californium.core.coap.Response;
+import org.eclipse.californium.core.coap.Token;
+import org.eclipse.californium.core.config.CoapConfig;
+import org.eclipse.californium.core.network.Exchange;
+import org.eclipse.californium.core.network.Exchange.Origin;
+import org.eclipse.californium.core.network.InMemoryMessageExchangeStore;
+import org.eclipse.californium.core.network.KeyMID;
+import org.eclipse.californium.core.network.deduplication.Deduplicator;
+import org.eclipse.californium.core.network.deduplication.DeduplicatorFactory;
+import org.eclipse.californium.elements.AddressEndpointContext;
+import org.eclipse.californium.elements.config.Configuration;
+
+/**
+ * Memory benchmark of the exchange store and the deduplicators.
+ * 
+ * For each deduplication strategy, the benchmark fills an exchange store as
+ * a server endpoint would with many clients: every simulated peer sends a
+ * number of confirmable requests, which are kept by the deduplicator, and
+ * has one confirmable notification in flight, which is kept by the exchange
+ * store. The retained heap per peer is measured after a full GC, together
+ * with the bytes allocated and the garbage collections while filling.
+ * 
+ * Run it with:
+ * 
+ * <pre>
+ * java -cp twt-testbed-server.jar org.server.MemoryBenchmark [peers] [requests per peer] [strategies]
+ * </pre>
+ * 
+ * The strategies are a comma separated list of the COAP.DEDUPLICATOR values.
+ * Other Californium settings, like COAP.EXCHANGE_LIFETIME, are read from the
+ * configuration file.
+ */
+public class MemoryBenchmark {
+
+    private static final List<String> STRATEGIES = Arrays.asList(CoapConfig.NO_DEDUPLICATOR,
+            CoapConfig.DEDUPLICATOR_MARK_AND_SWEEP, CoapConfig.DEDUPLICATOR_PEERS_MARK_AND_SWEEP);
+
+    static {
+        CoapConfig.register();
+        ServerConfig.register();
+    }
+
+    public static void main(String[] args) throws Exception {
+        int peers = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+        int requests = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        List<String> strategies = args.length > 2 ? Arrays.asList(args[2].split(",")) : STRATEGIES;
+
+        Configuration configuration = Configuration.createStandardWithFile(Configuration.DEFAULT_FILE);
+        System.out.println("peers;" + peers);
+        System.out.println("requests_per_peer;" + requests);
+        System.out.println("exchange_lifetime;" + configuration.getAsText(CoapConfig.EXCHANGE_LIFETIME));
+        for (String strategy : strategies) {
+            Configuration config = new Configuration(configuration);
+            config.set(CoapConfig.DEDUPLICATOR, strategy.trim());
+            run(config, peers, requests);
+        }
+    }
+
+    /**
+     * Fill an exchange store and print the memory usage.
+     * 
+     * @param config the configuration with the deduplication strategy
+     * @param peers the number of simulated peers
+     * @param requests the number of requests per peer
+     */
+    private static void run(Configuration config, int peers, int requests) throws UnknownHostException {
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+
+        long before = usedHeap(memory);
+        long gcCount = gcCount();
+        long gcTime = gcTime();
+        long allocated = allocatedBytes();
+        long start = System.nanoTime();
+
+        Deduplicator deduplicator = DeduplicatorFactory.getDeduplicatorFactory().createDeduplicator(config);
+        InMemoryMessageExchangeStore store = new InMemoryMessageExchangeStore(config);
+        store.setDeduplicator(deduplicator);
+        store.setExecutor(executor);
+        store.start();
+
+        int mid = 0;
+        for (int peer = 0; peer < peers; peer++) {
+            InetSocketAddress address = new InetSocketAddress(InetAddress.getByAddress(new byte[] { 10,
+                    (byte) (peer >> 16), (byte) (peer >> 8), (byte) peer }), 5683);
+            AddressEndpointContext context = new AddressEndpointContext(address);
+            Exchange exchange = null;
+            for (int index = 0; index < requests; index++) {
+                Request request = Request.newGet();
+                request.setMID(mid++ & 0xffff);
+                request.setToken(Token.fromProvider(new byte[] { (byte) peer, (byte) index }));
+                request.setSourceContext(context);
+                exchange = new Exchange(request, address, Origin.REMOTE, null);
+                store.findPrevious(new KeyMID(request.getMID(), address), exchange);
+            }
+            if (exchange != null) {
+                // the notification in flight
+                Response notification = new Response(ResponseCode.CONTENT);
+                notification.setType(Type.CON);
+                notification.setDestinationContext(context);
+                exchange.setResponse(notification);
+                exchange.setCurrentResponse(notification);
+                store.registerOutboundResponse(exchange);
+            }
+        }
+
+        long fillMs = (System.nanoTime() - start) / 1000000;
+        allocated = allocatedBytes() - allocated;
+        gcCount = gcCount() - gcCount;
+        gcTime = gcTime() - gcTime;
+        long retained = usedHeap(memory) - before;
+
+        System.out.println("strategy;" + config.get(CoapConfig.DEDUPLICATOR));
+        System.out.println("deduplicated;" + deduplicator.size());
+        System.out.println("bytes_per_peer;" + retained / peers);
+        System.out.println("allocated_bytes_per_peer;" + (allocated < 0 ? -1 : allocated / peers));
+        System.out.println("gc_count;" + gcCount);
+        System.out.println("gc_ms;" + gcTime);
+        System.out.println("fill_ms;" + fillMs);
+
+        store.stop();
+        executor.shutdownNow();
+    }
+
+    private static long usedHeap(MemoryMXBean memory) {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    private static long gcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, gc.getCollectionCount());
+        }
+        return count;
+    }
+
+    private static long gcTime() {
+        long time = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            time += Math.max(0, gc.getCollectionTime());
+        }
+        return time;
+    }
+
+    /**
+     * Get the bytes allocated by the current thread.
+     * 
+     * @return the allocated bytes, or -1 if not supported by the JVM
+     */
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,256 @@
+/********************************************************************************
+ * Copyright (c) 12-20-2024 Contributors to the Eclipse Foundation
+ * 
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ * 
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0, or the Eclipse Distribution License
+ * v1.0 which is available at
+ * https://www.eclipse.org/org/documents/edl-v10.php.
+ * 
+ * SPDX-License-Identifier: EPL-2.0 OR BSD-3-Clause
+ ********************************************************************************/
+
+package org.server;
+
+import java.net.InetSocketAddress;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.californium.elements.config.Configuration;
+import org.eclipse.californium.elements.util.NamedThreadFactory;
+
+/**
+ * Emulation of an impaired network between the server and its clients.
+ * 
+ * The impairments are applied by the {@link ImpairedConnector}s of the
+ * endpoints to the datagrams of all clients or only of the configured
+ * hosts, in the configured directions:
+ * 
+ * <ul>
+ * <li>loss, random or in bursts with a Gilbert-Elliott channel,</li>
+ * <li>delay with uniform jitter,</li>
+ * <li>reordering, by holding single datagrams back,</li>
+ * <li>duplication,</li>
+ * <li>periodic sleep windows, like a TWT station: datagrams which would
+ * arrive while the client sleeps are held until it wakes up. Each client
+ * has its own phase.</li>
+ * </ul>
+ * 
+ * The random decisions of each client are taken from its own generator,
+ * seeded from the configured seed and the host address of the client. The
+ * ephemeral source port is not part of the seed, so a scenario is repeatable
+ * across runs and independent of the other clients. If no impairment is
+ * configured, the connectors are not wrapped at all.
+ */
+public class NetworkImpairment {
+
+    /** Datagram dropped. */
+    public static final long[] DROP = new long[0];
+
+    /** Datagram passed on immediately. */
+    public static final long[] PASS = new long[] { 0 };
+
+    private static final long IDLE_TIMEOUT_MS = TimeUnit.MINUTES.toMillis(10);
+
+    private final Map<InetSocketAddress, Peer> peers = new ConcurrentHashMap<>();
+    private final Set<String> hosts = new HashSet<>();
+    private final boolean uplink;
+    private final boolean downlink;
+    private final long seed;
+    private final double loss;
+    private final double burstEnter;
+    private final double burstExit;
+    private final double burstLoss;
+    private final long delayNanos;
+    private final long jitterNanos;
+    private final double reorder;
+    private final long reorderDelayNanos;
+    private final double duplicate;
+    private final long sleepIntervalNanos;
+    private final long awakeNanos;
+    private final boolean enabled;
+    private final AtomicLong nextSweep = new AtomicLong();
+
+    private final AtomicLong passed = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong delayed = new AtomicLong();
+    private final AtomicLong reordered = new AtomicLong();
+    private final AtomicLong duplicated = new AtomicLong();
+    private final AtomicLong held = new AtomicLong();
+
+    private volatile ScheduledExecutorService executor;
+
+    /**
+     * Create the impairments from the configuration.
+     * 
+     * @param config the configuration
+     */
+    public NetworkImpairment(Configuration config) {
+        this.hosts.addAll(ServerConfig.getList(config, ServerConfig.IMPAIR_HOSTS));
+        String direction = config.get(ServerConfig.IMPAIR_DIRECTION);
+        this.uplink = !"DOWNLINK".equals(direction);
+        this.downlink = !"UPLINK".equals(direction);
+        this.seed = config.get(ServerConfig.IMPAIR_SEED);
+        this.loss = probability(config.get(ServerConfig.IMPAIR_LOSS));
+        this.burstEnter = probability(config.get(ServerConfig.IMPAIR_BURST_ENTER));
+        this.burstExit = probability(config.get(ServerConfig.IMPAIR_BURST_EXIT));
+        this.burstLoss = probability(config.get(ServerConfig.IMPAIR_BURST_LOSS));
+        this.delayNanos = config.get(ServerConfig.IMPAIR_DELAY, TimeUnit.NANOSECONDS);
+        this.jitterNanos = Math.min(delayNanos, config.get(ServerConfig.IMPAIR_JITTER, TimeUnit.NANOSECONDS));
+        this.reorder = probability(config.get(ServerConfig.IMPAIR_REORDER));
+        this.reorderDelayNanos = config.get(ServerConfig.IMPAIR_REORDER_DELAY, TimeUnit.NANOSECONDS);
+        this.duplicate = probability(config.get(ServerConfig.IMPAIR_DUPLICATE));
+        this.sleepIntervalNanos = config.get(ServerConfig.IMPAIR_SLEEP_INTERVAL, TimeUnit.NANOSECONDS);
+        this.awakeNanos = Math.min(sleepIntervalNanos, config.get(ServerConfig.IMPAIR_SLEEP_AWAKE, TimeUnit.NANOSECONDS));
+        this.enabled = loss > 0 || burstEnter > 0 || delayNanos > 0 || reorder > 0 || duplicate > 0
+                || (sleepIntervalNanos > 0 && awakeNanos < sleepIntervalNanos);
+    }
+
+    /**
+     * Check if any impairment is configured.
+     * 
+     * @return {@code true} if the connectors must be wrapped
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Decide the fate of a datagram.
+     * 
+     * @param address the address of the client
+     * @param received {@code true} for a datagram received from the client,
+     *            {@code false} for one sent to it
+     * @return the delays in nanoseconds of the copies to pass on,
+     *         {@link #DROP} or {@link #PASS}
+     */
+    public long[] apply(InetSocketAddress address, boolean received) {
+        if (!(received ? uplink : downlink) || !(hosts.isEmpty() || hosts.contains(address.getAddress().getHostAddress()))) {
+            return PASS;
+        }
+        long now = System.nanoTime();
+        Peer peer = peer(address, now);
+        synchronized (peer) {
+            peer.lastNanos = now;
+            Random random = peer.random;
+
+            // Gilbert-Elliott channel, without bursts only the loss of the good state
+            if (burstEnter > 0) {
+                peer.bad = peer.bad ? random.nextDouble() >= burstExit : random.nextDouble() < burstEnter;
+            }
+            double lossRate = peer.bad ? burstLoss : loss;
+            if (lossRate > 0 && random.nextDouble() < lossRate) {
+                dropped.incrementAndGet();
+                return DROP;
+            }
+
+            long delay = delayNanos;
+            if (jitterNanos > 0) {
+                delay += (long) ((random.nextDouble() * 2 - 1) * jitterNanos);
+            }
+            if (reorder > 0 && random.nextDouble() < reorder) {
+                delay += reorderDelayNanos;
+                reordered.incrementAndGet();
+            }
+            if (awakeNanos < sleepIntervalNanos) {
+                // hold the datagram until the client wakes up
+                long position = Math.floorMod(now + delay - peer.phaseNanos, sleepIntervalNanos);
+                if (position >= awakeNanos) {
+                    delay += sleepIntervalNanos - position;
+                    held.incrementAndGet();
+                }
+            }
+            if (delay > 0) {
+                delayed.incrementAndGet();
+            } else {
+                passed.incrementAndGet();
+            }
+            if (duplicate > 0 && random.nextDouble() < duplicate) {
+                duplicated.incrementAndGet();
+                return new long[] { delay, delay };
+            }
+            return delay > 0 ? new long[] { delay } : PASS;
+        }
+    }
+
+    /**
+     * Get the executor of the delayed datagrams.
+     * 
+     * @return the executor
+     */
+    public ScheduledExecutorService getExecutor() {
+        if (executor == null) {
+            synchronized (this) {
+                if (executor == null) {
+                    ScheduledThreadPoolExecutor pool = new ScheduledThreadPoolExecutor(1,
+                            new NamedThreadFactory("Impairment#"));
+                    pool.setRemoveOnCancelPolicy(true);
+                    executor = pool;
+                }
+            }
+        }
+        return executor;
+    }
+
+    /**
+     * Get the statistics as a string.
+     * 
+     * @return the statistics as a string
+     */
+    public String getStats() {
+        StringBuilder stats = new StringBuilder();
+        stats.append("passed;").append(passed.get()).append("\n");
+        stats.append("delayed;").append(delayed.get()).append("\n");
+        stats.append("dropped;").append(dropped.get()).append("\n");
+        stats.append("reordered;").append(reordered.get()).append("\n");
+        stats.append("duplicated;").append(duplicated.get()).append("\n");
+        stats.append("held_asleep;").append(held.get()).append("\n");
+        stats.append("clients;").append(peers.size());
+        return stats.toString();
+    }
+
+    private Peer peer(InetSocketAddress address, long now) {
+        long nowMs = TimeUnit.NANOSECONDS.toMillis(now);
+        long next = nextSweep.get();
+        if (nowMs >= next && nextSweep.compareAndSet(next, nowMs + IDLE_TIMEOUT_MS)) {
+            long idle = now - TimeUnit.MILLISECONDS.toNanos(IDLE_TIMEOUT_MS);
+            peers.values().removeIf(peer -> peer.isIdle(idle));
+        }
+        return peers.computeIfAbsent(address, key -> new Peer(seed * 31 + key.getAddress().hashCode(), now));
+    }
+
+    private static double probability(double value) {
+        return Math.max(0, Math.min(1, value));
+    }
+
+    /**
+     * Channel state of one client.
+     */
+    private class Peer {
+
+        private final Random random;
+        private final long phaseNanos;
+        private boolean bad;
+        private long lastNanos;
+
+        private Peer(long seed, long now) {
+            this.random = new Random(seed);
+            this.phaseNanos = sleepIntervalNanos > 0 ? now + (long) (random.nextDouble() * sleepIntervalNanos) : 0;
+            this.lastNanos = now;
+        }
+
+        private synchronized boolean isIdle(long idle) {
+            return lastNanos - idle < 0;
+        }
+    }
+}
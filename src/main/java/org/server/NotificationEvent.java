@@ -0,0 +1,58 @@
+/********************************************************************************
+ * Copyright (c) 12-20-2024 Contributors to the Eclipse Foundation
+ * 
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ * 
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0, or the Eclipse Distribution License
+ * v1.0 which is available at
+ * https://www.eclipse.org/org/documents/edl-v10.php.
+ * 
+ * SPDX-License-Identifier: EPL-2.0 OR BSD-3-Clause
+ ********************************************************************************/
+
+package org.server;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event of an actuator notification.
+ * 
+ * The duration of the event is the time to encode the notification and hand
+ * it to the CoAP stack, including the multicast command of a group. The
+ * notifications of the group observers are sent by the executor afterwards.
+ */
+@Name("org.server.Notification")
+@Label("Actuator Notification")
+@Category("TWT Testbed")
+@Description("Actuator notification sent to the observers")
+@StackTrace(false)
+public class NotificationEvent extends Event {
+
+    @Label("Resource")
+    String resource;
+
+    @Label("Value")
+    int value;
+
+    @Label("Observers")
+    int observers;
+
+    @Label("Payload Size")
+    @DataAmount
+    int payloadSize;
+
+    @Label("Confirmable")
+    boolean confirmable;
+
+    @Label("Multicast")
+    boolean multicast;
+}
@@ -0,0 +1,174 @@
+/********************************************************************************
+ * Copyright (c) 12-20-2024 Contributors to the Eclipse Foundation
+ * 
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ * 
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0, or the Eclipse Distribution License
+ * v1.0 which is available at
+ * https://www.eclipse.org/org/documents/edl-v10.php.
+ * 
+ * SPDX-License-Identifier: EPL-2.0 OR BSD-3-Clause
+ ********************************************************************************/
+
+package org.server;
+
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.californium.core.CoapResource;
+import org.eclipse.californium.core.coap.CoAP.ResponseCode;
+import org.eclipse.californium.core.observe.ObserveRelation;
+import org.eclipse.californium.core.server.resources.CoapExchange;
+
+/**
+ * Base class of the observable statistics resources.
+ * 
+ * A GET returns the full statistics, "key;value" lines. The serialized
+ * statistics are cached until their version changes. Clients which observe
+ * the resource are notified with the full statistics, at most once per
+ * configured interval and only if they changed. Every notification carries
+ * the complete current state, so a lost or replaced notification is
+ * repaired by the next one.
+ * 
+ * The changes are checked on the {@link ServerClock} of the shared data, only
+ * while the resource has observers.
+ */
+public abstract class ObservableStatResource extends CoapResource {
+
+    /** Version of statistics which can not tell their changes. */
+    protected static final long UNKNOWN_VERSION = -1;
+
+    private SharedData sharedData;
+
+    private String cached;
+    private long cachedVersion = UNKNOWN_VERSION;
+
+    private volatile String notified;
+    private boolean checking;
+
+    /**
+     * Create an observable statistics resource.
+     * 
+     * @param name the name of the resource
+     * @param title the display name
+     * @param sharedData the shared data, provides the notification interval
+     *            and the clock
+     */
+    protected ObservableStatResource(String name, String title, SharedData sharedData) {
+        super(name);
+        this.sharedData = sharedData;
+        getAttributes().setTitle(title);
+        setObservable(true);
+        getAttributes().setObservable();
+    }
+
+    /**
+     * Serialize the statistics.
+     * 
+     * @return the statistics, "key;value" lines
+     */
+    protected abstract String snapshot();
+
+    /**
+     * Get the version of the statistics.
+     * 
+     * @return a value which changes with the statistics, or
+     *         {@link #UNKNOWN_VERSION} to serialize them every time
+     */
+    protected abstract long version();
+
+    /**
+     * Add an observe relation and start checking the changes.
+     * 
+     * @param relation the observe relation
+     */
+    @Override
+    public void addObserveRelation(ObserveRelation relation) {
+        super.addObserveRelation(relation);
+        synchronized (this) {
+            if (!checking) {
+                checking = true;
+                schedule();
+            }
+        }
+    }
+
+    /**
+     * Handle GET requests.
+     * 
+     * @param exchange CoapExchange object that contains the request and response.
+     */
+    @Override
+    public void handleGET(CoapExchange exchange) {
+        ObserveRelation relation = exchange.advanced().getRelation();
+        String stats = notified;
+        if (relation != null && relation.isEstablished() && stats != null) {
+            // Notification, the statistics of the last check
+            exchange.respond(ResponseCode.CONTENT, stats);
+            return;
+        }
+
+        // Log the request
+        ServerLog.info("Received GET, Resource: " + getName());
+
+        // Send the response, a new observer sets the base of the changes
+        stats = get();
+        if (relation != null) {
+            synchronized (this) {
+                if (notified == null) {
+                    notified = stats;
+                }
+            }
+        }
+        exchange.respond(ResponseCode.CONTENT, stats);
+        ServerLog.info("Sent Response, Resource: " + getName());
+    }
+
+    private void schedule() {
+        sharedData.clock.schedule(() -> {
+            if (check()) {
+                schedule();
+            }
+        }, sharedData.config.get().statNotifyIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Get the serialized statistics, from the cache if unchanged.
+     * 
+     * @return the statistics
+     */
+    private synchronized String get() {
+        long version = version();
+        if (version == UNKNOWN_VERSION || version != cachedVersion || cached == null) {
+            cached = snapshot();
+            cachedVersion = version;
+        }
+        return cached;
+    }
+
+    /**
+     * Notify the observers about the changed statistics.
+     * 
+     * @return {@code true} to check again, {@code false} if there are no
+     *         observers left
+     */
+    private synchronized boolean check() {
+        if (getObserverCount() == 0) {
+            checking = false;
+            notified = null;
+            return false;
+        }
+        try {
+            String stats = get();
+            if (!stats.equals(notified)) {
+                notified = stats;
+                changed();
+            }
+        } catch (RuntimeException e) {
+            ServerLog.info("Statistics notification failed, Resource: " + getName() + ", " + e);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,139 @@
+/********************************************************************************
+ * Copyright (c) 12-20-2024 Contributors to the Eclipse Foundation
+ * 
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ * 
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0, or the Eclipse Distribution License
+ * v1.0 which is available at
+ * https://www.eclipse.org/org/documents/edl-v10.php.
+ * 
+ * SPDX-License-Identifier: EPL-2.0 OR BSD-3-Clause
+ ********************************************************************************/
+
+package org.server;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+
+import org.eclipse.californium.elements.config.Configuration;
+
+import jdk.jfr.Event;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+
+/**
+ * Flight recording of the server events.
+ * 
+ * The server emits {@link ExchangeEvent}, {@link ActuatorStatisticsEvent},
+ * {@link NotificationEvent} and {@link BlockwiseTransferEvent}. Without a
+ * running recording, the events are not committed and cost almost nothing.
+ * The recording uses the predefined JFR settings
+ * {@link ServerConfig#PROFILE_SETTINGS}, so the server events can be
+ * correlated with the garbage collections, thread and lock events of the
+ * JVM. It is written to {@link ServerConfig#PROFILE_FILE} when it stops or
+ * is dumped.
+ * 
+ * A recording started with the JVM option -XX:StartFlightRecording also
+ * contains the server events.
+ */
+public class ProfileRecorder {
+
+    private static final List<Class<? extends Event>> EVENTS = Arrays.asList(ExchangeEvent.class,
+            ActuatorStatisticsEvent.class, NotificationEvent.class, BlockwiseTransferEvent.class);
+
+    private final Path file;
+    private final String settings;
+    private Recording recording;
+
+    /**
+     * Create the recorder from the configuration.
+     * 
+     * @param config the configuration
+     */
+    public ProfileRecorder(Configuration config) {
+        this.file = Paths.get(config.get(ServerConfig.PROFILE_FILE));
+        this.settings = config.get(ServerConfig.PROFILE_SETTINGS);
+    }
+
+    /**
+     * Start the recording.
+     * 
+     * @return {@code true} if started, {@code false} if already running
+     * @throws IOException if the settings could not be read
+     * @throws ParseException if the settings could not be parsed
+     */
+    public synchronized boolean start() throws IOException, ParseException {
+        if (recording != null) {
+            return false;
+        }
+        Recording recording = new Recording(jdk.jfr.Configuration.getConfiguration(settings));
+        recording.setName("twt-testbed");
+        recording.setToDisk(true);
+        recording.setDestination(file);
+        recording.setDumpOnExit(true);
+        for (Class<? extends Event> event : EVENTS) {
+            recording.enable(event).withoutStackTrace();
+        }
+        recording.start();
+        this.recording = recording;
+        return true;
+    }
+
+    /**
+     * Stop the recording and write it to the file.
+     * 
+     * @return {@code true} if stopped, {@code false} if not running
+     */
+    public synchronized boolean stop() {
+        if (recording == null) {
+            return false;
+        }
+        // the destination is written when the recording stops
+        recording.stop();
+        recording.close();
+        recording = null;
+        return true;
+    }
+
+    /**
+     * Write the data recorded so far to the file, the recording continues.
+     * 
+     * @return {@code true} if written, {@code false} if not running
+     * @throws IOException if the file could not be written
+     */
+    public synchronized boolean dump() throws IOException {
+        if (recording == null) {
+            return false;
+        }
+        recording.dump(file);
+        return true;
+    }
+
+    /**
+     * Get the state of the recording as a string.
+     * 
+     * @return the state of the recording as a string
+     */
+    public synchronized String getStats() {
+        StringBuilder stats = new StringBuilder();
+        RecordingState state = recording == null ? RecordingState.STOPPED : recording.getState();
+        stats.append("state;").append(state.name().toLowerCase()).append("\n");
+        stats.append("settings;").append(settings).append("\n");
+        stats.append("file;").append(file.toAbsolutePath());
+        if (recording != null) {
+            Instant start = recording.getStartTime();
+            stats.append("\nduration_s;").append(start == null ? 0 : Duration.between(start, Instant.now()).getSeconds());
+            stats.append("\nsize_bytes;").append(recording.getSize());
+        }
+        return stats.toString();
+    }
+}
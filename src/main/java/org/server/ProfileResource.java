@@ -0,0 +1,106 @@
+/********************************************************************************
+ * Copyright (c) 12-20-2024 Contributors to the Eclipse Foundation
+ * 
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ * 
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0, or the Eclipse Distribution License
+ * v1.0 which is available at
+ * https://www.eclipse.org/org/documents/edl-v10.php.
+ * 
+ * SPDX-License-Identifier: EPL-2.0 OR BSD-3-Clause
+ ********************************************************************************/
+
+package org.server;
+
+import java.io.IOException;
+import java.security.Principal;
+import java.text.ParseException;
+
+import org.eclipse.californium.core.CoapResource;
+import org.eclipse.californium.core.coap.CoAP.ResponseCode;
+import org.eclipse.californium.core.server.resources.CoapExchange;
+
+/**
+ * ProfileResource is a CoAP resource to control the flight recording.
+ * 
+ * A GET returns the state of the recording. A PUT with the payload "start",
+ * "stop" or "dump" starts the recording, stops it or writes the data
+ * recorded so far to the file. Changes are only accepted over DTLS from the
+ * configured control PSK identity.
+ */
+public class ProfileResource extends CoapResource {
+
+    private SharedData sharedData;
+
+    /**
+     * Constructor for ProfileResource.
+     * 
+     * @param sharedData SharedData object that contains the recorder
+     */
+    public ProfileResource(SharedData sharedData) {
+        // Set resource identifier
+        super("profile");
+        this.sharedData = sharedData;
+        // Set display name
+        getAttributes().setTitle("Profile Resource");
+    }
+
+    /**
+     * Handle GET requests.
+     * 
+     * @param exchange CoapExchange object that contains the request and response.
+     */
+    @Override
+    public void handleGET(CoapExchange exchange) {
+        ServerLog.info("Received GET, Resource: profile");
+        exchange.respond(ResponseCode.CONTENT, sharedData.profiler.getStats());
+        ServerLog.info("Sent Response, Resource: profile");
+    }
+
+    /**
+     * Handle PUT requests.
+     * 
+     * @param exchange CoapExchange object that contains the request and response.
+     */
+    @Override
+    public void handlePUT(CoapExchange exchange) {
+        String command = new String(exchange.getRequestPayload()).trim();
+        ServerLog.info("Received PUT, Resource: profile, Payload: " + command);
+
+        // Only the configured PSK identity may control the recording
+        Principal identity = exchange.advanced().getRequest().getSourceContext().getPeerIdentity();
+        if (!sharedData.config.isControlIdentity(identity)) {
+            exchange.respond(ResponseCode.UNAUTHORIZED, "PSK identity required");
+            ServerLog.info("Sent Error, Resource: profile");
+            return;
+        }
+
+        try {
+            boolean changed;
+            switch (command) {
+            case "start":
+                changed = sharedData.profiler.start();
+                break;
+            case "stop":
+                changed = sharedData.profiler.stop();
+                break;
+            case "dump":
+                changed = sharedData.profiler.dump();
+                break;
+            default:
+                exchange.respond(ResponseCode.BAD_REQUEST, "start, stop or dump expected");
+                ServerLog.info("Sent Error, Resource: profile");
+                return;
+            }
+            exchange.respond(changed ? ResponseCode.CHANGED : ResponseCode.PRECONDITION_FAILED,
+                    sharedData.profiler.getStats());
+            ServerLog.info("Sent Response, Resource: profile");
+        } catch (IOException | ParseException e) {
+            exchange.respond(ResponseCode.INTERNAL_SERVER_ERROR, e.getMessage());
+            ServerLog.info("Sent Error, Resource: profile");
+        }
+    }
+}
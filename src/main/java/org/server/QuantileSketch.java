@@ -0,0 +1,122 @@
+/********************************************************************************
+ * Copyright (c) 12-20-2024 Contributors to the Eclipse Foundation
+ * 
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ * 
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0, or the Eclipse Distribution License
+ * v1.0 which is available at
+ * https://www.eclipse.org/org/documents/edl-v10.php.
+ * 
+ * SPDX-License-Identifier: EPL-2.0 OR BSD-3-Clause
+ ********************************************************************************/
+
+package org.server;
+
+import java.util.Arrays;
+
+/**
+ * Quantile sketch with a bounded relative error in constant memory.
+ * 
+ * The values are counted in logarithmic buckets, bucket i holds the values
+ * between {@link #GAMMA}^(i-1) and {@link #GAMMA}^i. A quantile is answered
+ * with the center of its bucket, so the relative error is below 5%. Values
+ * up to 1 share the first bucket and values above the range the last one.
+ * 
+ * This class is not thread safe, the caller must synchronize.
+ */
+public class QuantileSketch {
+
+    /** Growth factor of the buckets. */
+    public static final double GAMMA = 1.1;
+
+    /** Number of buckets, the range is up to GAMMA^192 ms, about 24.6 hours. */
+    public static final int BUCKETS = 193;
+
+    private static final double LOG_GAMMA = Math.log(GAMMA);
+
+    private final int[] counts = new int[BUCKETS];
+    private long count;
+
+    /**
+     * Add a value.
+     * 
+     * @param value the value, not negative
+     */
+    public void add(double value) {
+        counts[index(value)]++;
+        count++;
+    }
+
+    /**
+     * Get the number of values.
+     * 
+     * @return the number of values
+     */
+    public long count() {
+        return count;
+    }
+
+    /**
+     * Get a quantile.
+     * 
+     * @param quantile the quantile, between 0 and 1
+     * @return the estimated value of the quantile, or 0 if empty
+     */
+    public double quantile(double quantile) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * count));
+        long cumulated = 0;
+        for (int index = 0; index < BUCKETS; index++) {
+            cumulated += counts[index];
+            if (cumulated >= rank) {
+                return value(index);
+            }
+        }
+        return value(BUCKETS - 1);
+    }
+
+    /**
+     * Get the most frequent value.
+     * 
+     * @return the center of the bucket with the most values, or 0 if empty
+     */
+    public double mode() {
+        if (count == 0) {
+            return 0;
+        }
+        int mode = 0;
+        for (int index = 1; index < BUCKETS; index++) {
+            if (counts[index] > counts[mode]) {
+                mode = index;
+            }
+        }
+        return value(mode);
+    }
+
+    /**
+     * Remove all values.
+     */
+    public void clear() {
+        Arrays.fill(counts, 0);
+        count = 0;
+    }
+
+    private static int index(double value) {
+        if (value <= 1) {
+            return 0;
+        }
+        return Math.min(BUCKETS - 1, (int) Math.ceil(Math.log(value) / LOG_GAMMA));
+    }
+
+    private static double value(int index) {
+        if (index == 0) {
+            return 1;
+        }
+        return 2 * Math.pow(GAMMA, index) / (GAMMA + 1);
+    }
+}
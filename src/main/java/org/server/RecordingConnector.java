@@ -0,0 +1,61 @@
+/********************************************************************************
+ * Copyright (c) 12-20-2024 Contributors to the Eclipse Foundation
+ * 
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ * 
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0, or the Eclipse Distribution License
+ * v1.0 which is available at
+ * https://www.eclipse.org/org/documents/edl-v10.php.
+ * 
+ * SPDX-License-Identifier: EPL-2.0 OR BSD-3-Clause
+ ********************************************************************************/
+
+
+package org.server;
+
+import org.eclipse.californium.elements.Connector;
+import org.eclipse.californium.elements.RawData;
+import org.eclipse.californium.elements.RawDataChannel;
+
+/**
+ * Connector which records the datagrams received by an endpoint.
+ * 
+ * The datagrams are recorded as the connector passes them to the endpoint,
+ * so the datagrams of a DTLS connector are recorded decrypted, at the CoAP
+ * layer.
+ * 
+ * @see TrafficRecorder
+ */
+public class RecordingConnector extends ConnectorWrapper {
+
+    private final TrafficRecorder recorder;
+    private final String name;
+
+    /**
+     * Record the datagrams of a connector.
+     * 
+     * @param connector the connector of the endpoint
+     * @param name the name of the endpoint
+     * @param recorder the recorder
+     */
+    public RecordingConnector(Connector connector, String name, TrafficRecorder recorder) {
+        super(connector);
+        this.name = name;
+        this.recorder = recorder;
+    }
+
+    @Override
+    public void setRawDataReceiver(final RawDataChannel messageHandler) {
+        connector.setRawDataReceiver(new RawDataChannel() {
+
+            @Override
+            public void receiveData(RawData msg) {
+                recorder.record(name, msg);
+                messageHandler.receiveData(msg);
+            }
+        });
+    }
+}
@@ -0,0 +1,220 @@
+/********************************************************************************
+ * Copyright (c) 12-20-2024 Contributors to the Eclipse Foundation
+ * 
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ * 
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0, or the Eclipse Distribution License
+ * v1.0 which is available at
+ * https://www.eclipse.org/org/documents/edl-v10.php.
+ * 
+ * SPDX-License-Identifier: EPL-2.0 OR BSD-3-Clause
+ ********************************************************************************/
+
+
+package org.server;
+
+import java.net.DatagramPacket;
+import java.net.InetSocketAddress;
+import java.security.Principal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.californium.elements.AddressEndpointContext;
+import org.eclipse.californium.elements.Connector;
+import org.eclipse.californium.elements.EndpointContext;
+import org.eclipse.californium.elements.EndpointContextMatcher;
+import org.eclipse.californium.elements.RawData;
+import org.eclipse.californium.elements.RawDataChannel;
+
+/**
+ * In-process connector of the replay.
+ * 
+ * Datagrams are injected into the endpoint instead of being received from a
+ * socket, and the datagrams sent by the endpoint are dropped. The time from
+ * the injection of a request to the first response with the same token is
+ * recorded as latency of the request.
+ * 
+ * @see TrafficReplay
+ */
+public class ReplayConnector implements Connector {
+
+    private static final InetSocketAddress ADDRESS = new InetSocketAddress("127.0.0.1", 5683);
+
+    private final Map<String, Long> outstanding = new ConcurrentHashMap<>();
+    private final List<Long> latencies = new ArrayList<>();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong responses = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicLong lastResponse = new AtomicLong();
+    private volatile RawDataChannel receiver;
+    private volatile boolean running;
+
+    /**
+     * Inject a datagram into the endpoint.
+     * 
+     * @param bytes the CoAP message
+     * @param peer the address of the peer
+     * @param identity the identity of the peer, or {@code null}
+     */
+    public void inject(byte[] bytes, InetSocketAddress peer, Principal identity) {
+        long now = System.nanoTime();
+        if (isRequest(bytes)) {
+            requests.incrementAndGet();
+            outstanding.put(key(bytes, peer), now);
+        }
+        EndpointContext context = new AddressEndpointContext(peer, identity);
+        receiver.receiveData(RawData.inbound(bytes, context, false, now, ADDRESS));
+    }
+
+    @Override
+    public void send(RawData msg) {
+        byte[] bytes = msg.getBytes();
+        msg.onContextEstablished(msg.getEndpointContext());
+        msg.onSent();
+        if (isResponse(bytes)) {
+            long now = System.nanoTime();
+            Long start = outstanding.remove(key(bytes, msg.getInetSocketAddress()));
+            if (start != null) {
+                responses.incrementAndGet();
+                if ((bytes[1] & 0xff) >> 5 >= 4) {
+                    errors.incrementAndGet();
+                }
+                synchronized (latencies) {
+                    latencies.add(now - start);
+                }
+                lastResponse.set(now);
+            }
+        }
+    }
+
+    /**
+     * Get the number of injected requests.
+     * 
+     * @return the number of requests
+     */
+    public long getRequests() {
+        return requests.get();
+    }
+
+    /**
+     * Get the number of answered requests.
+     * 
+     * @return the number of responses
+     */
+    public long getResponses() {
+        return responses.get();
+    }
+
+    /**
+     * Get the number of error responses.
+     * 
+     * @return the number of 4.xx and 5.xx responses
+     */
+    public long getErrors() {
+        return errors.get();
+    }
+
+    /**
+     * Get the number of requests without response.
+     * 
+     * @return the number of requests without response
+     */
+    public int getOutstanding() {
+        return outstanding.size();
+    }
+
+    /**
+     * Get the time of the last response.
+     * 
+     * @return the time of the last response in nanoseconds
+     */
+    public long getLastResponse() {
+        return lastResponse.get();
+    }
+
+    /**
+     * Get the latencies of the answered requests.
+     * 
+     * @return the latencies in nanoseconds
+     */
+    public long[] getLatencies() {
+        synchronized (latencies) {
+            long[] result = new long[latencies.size()];
+            for (int index = 0; index < result.length; index++) {
+                result[index] = latencies.get(index);
+            }
+            return result;
+        }
+    }
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public void destroy() {
+        stop();
+    }
+
+    @Override
+    public void setRawDataReceiver(RawDataChannel messageHandler) {
+        this.receiver = messageHandler;
+    }
+
+    @Override
+    public void setEndpointContextMatcher(EndpointContextMatcher matcher) {
+    }
+
+    @Override
+    public InetSocketAddress getAddress() {
+        return ADDRESS;
+    }
+
+    @Override
+    public String getProtocol() {
+        return "UDP";
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public void processDatagram(DatagramPacket datagram) {
+    }
+
+    @Override
+    public String toString() {
+        return "replay";
+    }
+
+    private static boolean isRequest(byte[] bytes) {
+        return bytes.length >= 4 && bytes[1] != 0 && (bytes[1] & 0xff) >> 5 == 0;
+    }
+
+    private static boolean isResponse(byte[] bytes) {
+        return bytes.length >= 4 && (bytes[1] & 0xff) >> 5 >= 2;
+    }
+
+    private static String key(byte[] bytes, InetSocketAddress peer) {
+        int length = Math.min(bytes[0] & 0x0f, bytes.length - 4);
+        StringBuilder key = new StringBuilder(peer.toString()).append('#');
+        for (int index = 0; index < length; index++) {
+            key.append(String.format("%02x", bytes[4 + index]));
+        }
+        return key.toString();
+    }
+}
@@ -0,0 +1,242 @@
+/********************************************************************************
+ * Copyright (c) 12-20-2024 Contributors to the Eclipse Foundation
+ * 
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ * 
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0, or the Eclipse Distribution License
+ * v1.0 which is available at
+ * https://www.eclipse.org/org/documents/edl-v10.php.
+ * 
+ * SPDX-License-Identifier: EPL-2.0 OR BSD-3-Clause
+ ********************************************************************************/
+
+package org.server;
+
+import java.net.InetSocketAddress;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.californium.core.coap.CoAP.Type;
+import org.eclipse.californium.core.coap.EmptyMessage;
+import org.eclipse.californium.core.coap.Request;
+import org.eclipse.californium.core.coap.Response;
+import org.eclipse.californium.core.config.CoapConfig;
+import org.eclipse.californium.core.config.CoapConfig.CongestionControlMode;
+import org.eclipse.californium.core.network.interceptors.MessageInterceptorAdapter;
+import org.eclipse.californium.elements.config.Configuration;
+
+/**
+ * Per client round trip time estimation of one endpoint.
+ * 
+ * The estimator is added as interceptor to an endpoint. It records every
+ * transmission of the confirmable messages sent by the server and takes a
+ * round trip time sample when the ACK or RST arrives. Samples of
+ * retransmitted messages are ignored (Karn's algorithm). The smoothed round
+ * trip time, its variation and the retransmission timeout are calculated as
+ * in RFC 6298, independent of the congestion control algorithm of the
+ * endpoint. The interval between the first transmission and the first
+ * retransmission shows the timeout the algorithm actually used.
+ * 
+ * Retransmitted confirmable requests of a client are counted as duplicates,
+ * they show spurious retransmissions of the client.
+ */
+public class RttEstimator extends MessageInterceptorAdapter {
+
+    private static final double ALPHA = 1.0 / 8;
+    private static final double BETA = 1.0 / 4;
+    private static final int K = 4;
+    private static final long MIN_RTO_MS = 1000;
+    private static final int MID_HISTORY = 64;
+    private static final long IDLE_TIMEOUT_MS = TimeUnit.MINUTES.toMillis(10);
+
+    private final Map<InetSocketAddress, Peer> peers = new ConcurrentHashMap<>();
+    private final String name;
+    private final CongestionControlMode mode;
+    private final long initialRtoMs;
+    private final long lifetimeNanos;
+    private final AtomicLong nextSweep = new AtomicLong();
+
+    /**
+     * Create the estimator of an endpoint.
+     * 
+     * @param name the name of the endpoint
+     * @param config the configuration of the endpoint
+     */
+    public RttEstimator(String name, Configuration config) {
+        this.name = name;
+        this.mode = config.get(CoapConfig.CONGESTION_CONTROL_ALGORITHM);
+        this.initialRtoMs = config.get(CoapConfig.ACK_TIMEOUT, TimeUnit.MILLISECONDS);
+        this.lifetimeNanos = config.get(CoapConfig.EXCHANGE_LIFETIME, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void sendResponse(Response response) {
+        if (response.getType() == Type.CON) {
+            peer(response.getDestinationContext().getPeerAddress()).sent(response.getMID());
+        }
+    }
+
+    @Override
+    public void sendRequest(Request request) {
+        if (request.getType() == Type.CON) {
+            peer(request.getDestinationContext().getPeerAddress()).sent(request.getMID());
+        }
+    }
+
+    @Override
+    public void receiveEmptyMessage(EmptyMessage message) {
+        if (message.getType() == Type.ACK || message.getType() == Type.RST) {
+            Peer peer = peers.get(message.getSourceContext().getPeerAddress());
+            if (peer != null) {
+                peer.acknowledged(message.getMID());
+            }
+        }
+    }
+
+    @Override
+    public void receiveResponse(Response response) {
+        if (response.getType() == Type.ACK) {
+            Peer peer = peers.get(response.getSourceContext().getPeerAddress());
+            if (peer != null) {
+                peer.acknowledged(response.getMID());
+            }
+        }
+    }
+
+    @Override
+    public void receiveRequest(Request request) {
+        if (request.getType() == Type.CON) {
+            peer(request.getSourceContext().getPeerAddress()).received(request.getMID());
+        }
+    }
+
+    /**
+     * Get the statistics as a string.
+     * 
+     * The first line names the endpoint and its congestion control
+     * algorithm, followed by one line per client.
+     * 
+     * @return the statistics as a string
+     */
+    public String getStats() {
+        StringBuilder stats = new StringBuilder();
+        stats.append("endpoint;").append(name).append(";").append(mode).append("\n");
+        stats.append("client;srtt_ms;rttvar_ms;rto_ms;observed_rto_ms;transmissions;retransmissions;acknowledged;unacknowledged;duplicates");
+        for (Map.Entry<InetSocketAddress, Peer> entry : peers.entrySet()) {
+            Peer peer = entry.getValue();
+            synchronized (peer) {
+                stats.append("\n").append(entry.getKey()).append(";");
+                stats.append(Math.round(peer.srtt)).append(";");
+                stats.append(Math.round(peer.rttvar)).append(";");
+                stats.append(peer.rto).append(";");
+                stats.append(peer.observedRto).append(";");
+                stats.append(peer.transmissions).append(";");
+                stats.append(peer.retransmissions).append(";");
+                stats.append(peer.acknowledged).append(";");
+                stats.append(peer.unacknowledged).append(";");
+                stats.append(peer.duplicates);
+            }
+        }
+        return stats.toString();
+    }
+
+    private Peer peer(InetSocketAddress address) {
+        long now = TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+        long next = nextSweep.get();
+        if (now >= next && nextSweep.compareAndSet(next, now + IDLE_TIMEOUT_MS)) {
+            long idle = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(IDLE_TIMEOUT_MS);
+            peers.values().removeIf(peer -> peer.isIdle(idle));
+        }
+        return peers.computeIfAbsent(address, key -> new Peer());
+    }
+
+    /**
+     * Round trip time estimation of one client.
+     */
+    private class Peer {
+
+        // message ID to {first transmission, transmissions}
+        private final Map<Integer, long[]> pending = new HashMap<>();
+        private final int[] mids = new int[MID_HISTORY];
+        private int midCount;
+        private double srtt;
+        private double rttvar;
+        private long rto = initialRtoMs;
+        private long observedRto;
+        private long transmissions;
+        private long retransmissions;
+        private long acknowledged;
+        private long unacknowledged;
+        private long duplicates;
+        private long lastNanos = System.nanoTime();
+
+        private synchronized boolean isIdle(long idle) {
+            return lastNanos - idle < 0;
+        }
+
+        private synchronized void sent(int mid) {
+            long now = System.nanoTime();
+            lastNanos = now;
+            transmissions++;
+            long[] transmission = pending.get(mid);
+            if (transmission == null) {
+                expire(now);
+                pending.put(mid, new long[] { now, 1 });
+            } else {
+                retransmissions++;
+                if (transmission[1]++ == 1) {
+                    observedRto = TimeUnit.NANOSECONDS.toMillis(now - transmission[0]);
+                }
+            }
+        }
+
+        private synchronized void acknowledged(int mid) {
+            long[] transmission = pending.remove(mid);
+            if (transmission == null) {
+                return;
+            }
+            acknowledged++;
+            if (transmission[1] > 1) {
+                // ambiguous sample, Karn's algorithm
+                return;
+            }
+            double sample = (System.nanoTime() - transmission[0]) / 1000000.0;
+            if (srtt == 0) {
+                srtt = sample;
+                rttvar = sample / 2;
+            } else {
+                rttvar = (1 - BETA) * rttvar + BETA * Math.abs(srtt - sample);
+                srtt = (1 - ALPHA) * srtt + ALPHA * sample;
+            }
+            rto = Math.max(MIN_RTO_MS, Math.round(srtt + K * rttvar));
+        }
+
+        private synchronized void received(int mid) {
+            lastNanos = System.nanoTime();
+            for (int index = 0; index < Math.min(midCount, MID_HISTORY); index++) {
+                if (mids[index] == mid) {
+                    duplicates++;
+                    return;
+                }
+            }
+            mids[midCount++ % MID_HISTORY] = mid;
+        }
+
+        private void expire(long now) {
+            Iterator<long[]> iterator = pending.values().iterator();
+            while (iterator.hasNext()) {
+                if (now - iterator.next()[0] > lifetimeNanos) {
+                    iterator.remove();
+                    unacknowledged++;
+                }
+            }
+        }
+    }
+}
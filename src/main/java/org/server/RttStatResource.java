@@ -0,0 +1,68 @@
+/********************************************************************************
+ * Copyright (c) 12-20-2024 Contributors to the Eclipse Foundation
+ * 
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ * 
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0, or the Eclipse Distribution License
+ * v1.0 which is available at
+ * https://www.eclipse.org/org/documents/edl-v10.php.
+ * 
+ * SPDX-License-Identifier: EPL-2.0 OR BSD-3-Clause
+ ********************************************************************************/
+
+package org.server;
+
+import org.eclipse.californium.core.CoapResource;
+import org.eclipse.californium.core.coap.CoAP.ResponseCode;
+import org.eclipse.californium.core.server.resources.CoapExchange;
+
+
+/**
+ * RttStatResource is a CoAP resource that provides the round trip time statistics.
+ * 
+ * It reports the congestion control algorithm of each endpoint and, per client, the
+ * estimated round trip time and retransmission timeout and the retransmissions.
+ */
+public class RttStatResource extends CoapResource {
+
+    private SharedData sharedData;
+
+    /**
+     * Constructor for RttStatResource.
+     * 
+     * @param sharedData SharedData object that contains the round trip time estimators.
+     */
+    public RttStatResource(SharedData sharedData) {
+        // Set resource identifier
+        super("rttstat");
+        this.sharedData = sharedData;
+        // Set display name
+        getAttributes().setTitle("RTT Stat Resource");
+    }
+
+    /**
+     * Handle GET requests.
+     * 
+     * @param exchange CoapExchange object that contains the request and response.
+     */
+    @Override
+    public void handleGET(CoapExchange exchange) {
+
+        // Log the request
+        ServerLog.info("Received GET, Resource: rttstat");
+
+        // Send the response
+        StringBuilder stats = new StringBuilder();
+        for (RttEstimator estimator : sharedData.rtt) {
+            if (stats.length() > 0) {
+                stats.append("\n");
+            }
+            stats.append(estimator.getStats());
+        }
+        exchange.respond(ResponseCode.CONTENT, stats.toString());
+        ServerLog.info("Sent Response, Resource: rttstat");
+    }
+}
@@ -0,0 +1,189 @@
+/********************************************************************************
+ * Copyright (c) 12-20-2024 Contributors to the Eclipse Foundation
+ * 
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ * 
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0, or the Eclipse Distribution License
+ * v1.0 which is available at
+ * https://www.eclipse.org/org/documents/edl-v10.php.
+ * 
+ * SPDX-License-Identifier: EPL-2.0 OR BSD-3-Clause
+ ********************************************************************************/
+
+package org.server;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.security.Principal;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.eclipse.californium.elements.auth.PreSharedKeyIdentity;
+import org.eclipse.californium.elements.config.Configuration;
+import org.eclipse.californium.elements.config.DocumentedDefinition;
+
+/**
+ * Holder of the settings which can be changed at runtime.
+ * 
+ * The settings are published as immutable, versioned {@link RuntimeSettings}
+ * snapshots, which are swapped atomically. The resources read the current
+ * snapshot once per request without locking, so a change takes effect with
+ * the next request. Changes are applied through the config resource or by
+ * editing the configuration file.
+ */
+public class RuntimeConfig {
+
+    private final AtomicReference<RuntimeSettings> settings = new AtomicReference<>();
+    private Configuration config;
+    private long version;
+
+    /**
+     * Create the runtime configuration.
+     * 
+     * @param config the configuration loaded at startup
+     */
+    public RuntimeConfig(Configuration config) {
+        apply(new Configuration(config));
+    }
+
+    /**
+     * Get the current settings.
+     * 
+     * @return the current settings
+     */
+    public RuntimeSettings get() {
+        return settings.get();
+    }
+
+    /**
+     * Check if a peer may control the server.
+     * 
+     * Only the configured control PSK identity may update the settings or
+     * control the recording. Control is disabled if no identity is
+     * configured, or if it is the identity shared by the testbed stations.
+     * 
+     * @param identity the identity of the peer
+     * @return {@code true} if the peer may control the server
+     */
+    public synchronized boolean isControlIdentity(Principal identity) {
+        String control = config.get(ServerConfig.CONFIG_PSK_IDENTITY);
+        return control != null && !control.isEmpty() && !control.equals(Main.PSK_IDENTITY)
+                && identity instanceof PreSharedKeyIdentity
+                && ((PreSharedKeyIdentity) identity).getIdentity().equals(control);
+    }
+
+    /**
+     * Update runtime settings.
+     * 
+     * Either all properties are applied or none.
+     * 
+     * @param properties the new values, keyed by the definition keys
+     * @return the new settings
+     * @throws IllegalArgumentException if a key is not a runtime setting or
+     *             a value is invalid
+     */
+    public synchronized RuntimeSettings update(Properties properties) {
+        Configuration next = new Configuration(config);
+        for (String key : properties.stringPropertyNames()) {
+            DocumentedDefinition<?> definition = find(key);
+            if (definition == null) {
+                throw new IllegalArgumentException("Key '" + key + "' is not a runtime setting!");
+            }
+            next.setFromText(definition, properties.getProperty(key).trim());
+        }
+        return apply(next);
+    }
+
+    /**
+     * Reload the runtime settings from a configuration file.
+     * 
+     * @param file the configuration file
+     * @return the new settings
+     */
+    public synchronized RuntimeSettings reload(File file) {
+        Configuration next = new Configuration(config);
+        next.load(file);
+        return apply(next);
+    }
+
+    /**
+     * Reload the runtime settings whenever the configuration file changes.
+     * 
+     * @param file the configuration file
+     * @throws IOException if the file can not be watched
+     */
+    public void watch(final File file) throws IOException {
+        final Path path = file.getAbsoluteFile().toPath();
+        final WatchService watcher = path.getFileSystem().newWatchService();
+        path.getParent().register(watcher, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        Thread thread = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                while (true) {
+                    WatchKey key;
+                    try {
+                        key = watcher.take();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    boolean changed = false;
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        changed |= path.getFileName().equals(event.context());
+                    }
+                    key.reset();
+                    if (changed && file.exists()) {
+                        try {
+                            RuntimeSettings settings = reload(file);
+                            System.out.println(ServerTimestamp.getElapsedTime() + "Reloaded " + file + ", version " + settings.version);
+                        } catch (RuntimeException e) {
+                            System.out.println(ServerTimestamp.getElapsedTime() + "Invalid configuration " + file + ": " + e.getMessage());
+                        }
+                    }
+                }
+            }
+        }, "ConfigWatcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Get the runtime settings as a string.
+     * 
+     * @return the runtime settings as a string
+     */
+    public synchronized String getStats() {
+        StringBuilder stats = new StringBuilder();
+        stats.append("version;").append(version);
+        for (DocumentedDefinition<?> definition : ServerConfig.RUNTIME_DEFINITIONS) {
+            stats.append("\n").append(definition.getKey()).append(";").append(config.getAsText(definition));
+        }
+        return stats.toString();
+    }
+
+    private RuntimeSettings apply(Configuration next) {
+        RuntimeSettings snapshot = new RuntimeSettings(next, version + 1);
+        version = snapshot.version;
+        config = next;
+        settings.set(snapshot);
+        ServerLog.setLevel(snapshot.logLevel);
+        return snapshot;
+    }
+
+    private static DocumentedDefinition<?> find(String key) {
+        for (DocumentedDefinition<?> definition : ServerConfig.RUNTIME_DEFINITIONS) {
+            if (definition.getKey().equals(key)) {
+                return definition;
+            }
+        }
+        return null;
+    }
+}
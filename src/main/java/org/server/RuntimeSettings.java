@@ -0,0 +1,61 @@
+/********************************************************************************
+ * Copyright (c) 12-20-2024 Contributors to the Eclipse Foundation
+ * 
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ * 
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0, or the Eclipse Distribution License
+ * v1.0 which is available at
+ * https://www.eclipse.org/org/documents/edl-v10.php.
+ * 
+ * SPDX-License-Identifier: EPL-2.0 OR BSD-3-Clause
+ ********************************************************************************/
+
+package org.server;
+
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.californium.elements.config.Configuration;
+
+/**
+ * Immutable snapshot of the settings which can be changed at runtime.
+ * 
+ * @see RuntimeConfig
+ */
+public final class RuntimeSettings {
+
+    public final long version;
+    public final long latencyMinMs;
+    public final long latencyMaxMs;
+    public final int actuatorMinInterval; // in seconds
+    public final int actuatorMaxInterval; // in seconds
+    public final long actuatorTimeoutMs;
+    public final boolean actuatorConfirmable;
+    public final boolean actuatorTimestamps;
+    public final long statNotifyIntervalMs;
+    public final ServerLog.Level logLevel;
+    public final int largePayloadMax;
+
+    /**
+     * Create the snapshot of the runtime settings of a configuration.
+     * 
+     * @param config the configuration
+     * @param version the version of the snapshot
+     */
+    public RuntimeSettings(Configuration config, long version) {
+        this.version = version;
+        this.latencyMinMs = config.get(ServerConfig.LATENCY_MIN, TimeUnit.MILLISECONDS);
+        this.latencyMaxMs = Math.max(latencyMinMs, config.get(ServerConfig.LATENCY_MAX, TimeUnit.MILLISECONDS));
+        this.actuatorMinInterval = config.getTimeAsInt(ServerConfig.ACTUATOR_MIN_INTERVAL, TimeUnit.SECONDS);
+        this.actuatorMaxInterval = Math.max(actuatorMinInterval,
+                config.getTimeAsInt(ServerConfig.ACTUATOR_MAX_INTERVAL, TimeUnit.SECONDS));
+        this.actuatorTimeoutMs = config.get(ServerConfig.ACTUATOR_TIMEOUT, TimeUnit.MILLISECONDS);
+        this.actuatorConfirmable = config.get(ServerConfig.ACTUATOR_CONFIRMABLE);
+        this.actuatorTimestamps = config.get(ServerConfig.ACTUATOR_TIMESTAMPS);
+        this.statNotifyIntervalMs = Math.max(10, config.get(ServerConfig.STAT_NOTIFY_INTERVAL, TimeUnit.MILLISECONDS));
+        this.logLevel = ServerLog.Level.valueOf(config.get(ServerConfig.LOG_LEVEL));
+        this.largePayloadMax = config.get(ServerConfig.LARGE_PAYLOAD_MAX);
+    }
+}
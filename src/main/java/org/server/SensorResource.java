@@ -47,10 +47,10 @@ public class SensorResource extends CoapResource {
     public void handleGET(CoapExchange exchange) {
         // GET method: returns the current content
         String payload = new String(exchange.getRequestPayload());
-        System.out.println(ServerTimestamp.getElapsedTime()+"Received GET, Resource: sensor");
+        ServerLog.info("Received GET, Resource: sensor");
         
         exchange.respond(ResponseCode.CONTENT, content);
-        System.out.println(ServerTimestamp.getElapsedTime()+"Sent Response, Resource: sensor");
+        ServerLog.info("Sent Response, Resource: sensor");
     }
 
     /**
@@ -63,21 +63,17 @@ public class SensorResource extends CoapResource {
         // PUT method: updates the content with the received payload
         String payload = new String(exchange.getRequestPayload());
         if (!payload.isEmpty()) {
-            System.out.println(ServerTimestamp.getElapsedTime()+"Received PUT, Resource: sensor, Payload: " + payload);
+            ServerLog.info("Received PUT, Resource: sensor, Payload: " + payload);
         } else {
-            System.out.println(ServerTimestamp.getElapsedTime()+"Received PUT, Resource: sensor");
+            ServerLog.info("Received PUT, Resource: sensor");
         }
-        this.sharedData.globalCnt++;
+        this.sharedData.counters.increment("sensor");
 
-        //wait for 20 - 50 ms to simulate prossesing and latency
-        try {
-            Thread.sleep((long) (Math.random() * 30 + 20));
-        } catch (InterruptedException e) {
-            e.printStackTrace();
-        }
+        //wait for the configured time to simulate prossesing and latency
+        sharedData.latency.simulate();
 
         // respond to the request
         exchange.respond(ResponseCode.CHANGED, ("Received: " + payload));
-        System.out.println(ServerTimestamp.getElapsedTime()+"Sent Response, Resource: sensor");
+        ServerLog.info("Sent Response, Resource: sensor");
     }
 }
\ No newline at end of file
@@ -0,0 +1,267 @@
+/********************************************************************************
+ * Copyright (c) 12-20-2024 Contributors to the Eclipse Foundation
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0, or the Eclipse Distribution License
+ * v1.0 which is available at
+ * https://www.eclipse.org/org/documents/edl-v10.php.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR BSD-3-Clause
+ ********************************************************************************/
+
+package org.server;
+
+import java.util.Arrays;
+
+/**
+ * Sliding-window tracker for the actuator sequence numbers.
+ *
+ * The tracker keeps the send time and a received bit for the last
+ * {@link #WINDOW} sequence numbers in fixed-size ring buffers. Every echo is
+ * classified in constant time as accepted, duplicate, late (arrived after
+ * its slot was resolved) or unknown (never sent). A slot is resolved when it
+ * times out or slides out of the window; resolved slots that were never
+ * received extend the current loss burst, and the burst lengths are kept in
+ * a fixed-size distribution.
+ *
+ * Sequence numbers skipped by the sender are marked in the window, they are
+ * neither lost nor pending echoes, and an echo of them is unknown. The
+ * numbers in flight before the gap stay pending.
+ *
+ * This class is not thread safe, the caller must synchronize.
+ */
+public class SequenceTracker {
+
+    /** Number of sequence numbers tracked, must be a multiple of 64. */
+    public static final int WINDOW = 1024;
+
+    /** Bursts of this length or longer share the last bucket. */
+    public static final int MAX_BURST = 32;
+
+    /**
+     * Result of an echo.
+     */
+    public enum Result {
+        ACCEPTED, DUPLICATE, LATE, UNKNOWN
+    }
+
+    private final long[] sentTimes = new long[WINDOW];
+    private final long[] receivedBits = new long[WINDOW / 64];
+    private final long[] skippedBits = new long[WINDOW / 64];
+    private final int[] bursts = new int[MAX_BURST];
+
+    private int lowestPending;  // lowest sequence number not resolved yet
+    private int highestSent;
+    private int highestReceived;
+    private int currentBurst;
+
+    private int duplicates;
+    private int reordered;
+    private int late;
+    private int unknown;
+
+    /**
+     * Create a new, empty tracker.
+     */
+    public SequenceTracker() {
+        clear();
+    }
+
+    /**
+     * Register a sent sequence number.
+     *
+     * If the sequence number is not above the highest sent one, the sender
+     * restarted its sequence and the tracker is cleared first.
+     *
+     * @param seq the sequence number
+     * @param now the current time in milliseconds
+     */
+    public void sent(int seq, long now) {
+        if (seq <= highestSent) {
+            clear();
+        }
+        if (highestSent < 0) {
+            lowestPending = seq;
+        } else if (seq > highestSent + 1) {
+            // only the numbers sliding out of the window are resolved
+            int first = Math.max(highestSent + 1, seq - WINDOW);
+            resolveUpTo(Math.min(highestSent, seq - WINDOW));
+            if (lowestPending > highestSent) {
+                lowestPending = first;
+            }
+            for (int skipped = first; skipped < seq; skipped++) {
+                sentTimes[slot(skipped)] = now;
+                set(receivedBits, skipped);
+                set(skippedBits, skipped);
+            }
+        }
+        if (seq - lowestPending >= WINDOW) {
+            resolveUpTo(seq - WINDOW);
+        }
+        highestSent = seq;
+        sentTimes[slot(seq)] = now;
+        clear(receivedBits, seq);
+        clear(skippedBits, seq);
+    }
+
+    /**
+     * Register a received echo.
+     *
+     * @param seq the echoed sequence number
+     * @return the classification of the echo
+     */
+    public Result received(int seq) {
+        if (seq < 0 || seq > highestSent || highestSent - seq >= WINDOW) {
+            if (seq >= 0 && seq <= highestSent) {
+                late++;
+                return Result.LATE;
+            }
+            unknown++;
+            return Result.UNKNOWN;
+        }
+        if (isSet(skippedBits, seq)) {
+            unknown++;
+            return Result.UNKNOWN;
+        }
+        if (isSet(receivedBits, seq)) {
+            duplicates++;
+            return Result.DUPLICATE;
+        }
+        set(receivedBits, seq);
+        if (seq < lowestPending) {
+            late++;
+            return Result.LATE;
+        }
+        if (seq < highestReceived) {
+            reordered++;
+        } else {
+            highestReceived = seq;
+        }
+        return Result.ACCEPTED;
+    }
+
+    /**
+     * Get the send time of a pending sequence number.
+     *
+     * @param seq the sequence number, must have been accepted by
+     *            {@link #received(int)}
+     * @return the send time in milliseconds
+     */
+    public long sentTime(int seq) {
+        return sentTimes[slot(seq)];
+    }
+
+    /**
+     * Resolve all pending sequence numbers sent before the timeout.
+     *
+     * @param now the current time in milliseconds
+     * @param timeoutMs the timeout in milliseconds
+     */
+    public void expire(long now, long timeoutMs) {
+        while (lowestPending <= highestSent && now - sentTimes[slot(lowestPending)] > timeoutMs) {
+            resolve(lowestPending++);
+        }
+    }
+
+    /**
+     * Get the number of sent sequence numbers that are not resolved yet.
+     *
+     * @return the number of pending sequence numbers
+     */
+    public int pending() {
+        return highestSent < 0 ? 0 : highestSent - lowestPending + 1;
+    }
+
+    public int duplicates() {
+        return duplicates;
+    }
+
+    public int reordered() {
+        return reordered;
+    }
+
+    public int late() {
+        return late;
+    }
+
+    public int unknown() {
+        return unknown;
+    }
+
+    /**
+     * Get the distribution of consecutive loss burst lengths.
+     *
+     * Index {@code i} holds the number of bursts of length {@code i + 1}.
+     * The burst that is still open is included.
+     *
+     * @return a copy of the burst distribution
+     */
+    public int[] bursts() {
+        int[] copy = bursts.clone();
+        if (currentBurst > 0) {
+            copy[Math.min(currentBurst, MAX_BURST) - 1]++;
+        }
+        return copy;
+    }
+
+    /**
+     * Clear all state.
+     */
+    public void clear() {
+        Arrays.fill(receivedBits, 0L);
+        Arrays.fill(skippedBits, 0L);
+        Arrays.fill(bursts, 0);
+        lowestPending = 0;
+        highestSent = -1;
+        highestReceived = -1;
+        currentBurst = 0;
+        duplicates = 0;
+        reordered = 0;
+        late = 0;
+        unknown = 0;
+    }
+
+    private void resolveUpTo(int seq) {
+        while (lowestPending <= seq) {
+            resolve(lowestPending++);
+        }
+    }
+
+    private void resolve(int seq) {
+        if (isSet(skippedBits, seq)) {
+            // never sent, neither extends nor ends a burst
+            return;
+        }
+        if (isSet(receivedBits, seq)) {
+            if (currentBurst > 0) {
+                bursts[Math.min(currentBurst, MAX_BURST) - 1]++;
+                currentBurst = 0;
+            }
+        } else {
+            currentBurst++;
+        }
+    }
+
+    private static int slot(int seq) {
+        return seq & (WINDOW - 1);
+    }
+
+    private static boolean isSet(long[] bits, int seq) {
+        int slot = slot(seq);
+        return (bits[slot >>> 6] & (1L << slot)) != 0;
+    }
+
+    private static void set(long[] bits, int seq) {
+        int slot = slot(seq);
+        bits[slot >>> 6] |= 1L << slot;
+    }
+
+    private static void clear(long[] bits, int seq) {
+        int slot = slot(seq);
+        bits[slot >>> 6] &= ~(1L << slot);
+    }
+}
@@ -0,0 +1,109 @@
+/********************************************************************************
+ * Copyright (c) 12-20-2024 Contributors to the Eclipse Foundation
+ * 
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ * 
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0, or the Eclipse Distribution License
+ * v1.0 which is available at
+ * https://www.eclipse.org/org/documents/edl-v10.php.
+ * 
+ * SPDX-License-Identifier: EPL-2.0 OR BSD-3-Clause
+ ********************************************************************************/
+
+package org.server;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.californium.elements.util.DaemonThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Clock and scheduler of the server.
+ * 
+ * The actuator notifications, the actuator statistics, the simulated latency
+ * and the {@link ServerTimestamp} take the time and their timers from this
+ * clock, so they can be driven by a {@link VirtualClock} instead. This
+ * implementation is the real clock: the time is {@link System#nanoTime()}
+ * and the tasks are run by one daemon scheduler thread, which is created with
+ * the first task. A task which fails is logged, the scheduler keeps running
+ * the other tasks.
+ */
+public class ServerClock {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ServerClock.class.getName());
+
+    private final long startNanos = System.nanoTime();
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * Get the current time of the clock.
+     * 
+     * @return the time in nanoseconds, only valid for differences
+     */
+    public long nanoTime() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Get the monotonic server time.
+     * 
+     * @return the milliseconds since the clock started
+     */
+    public long millis() {
+        return toMillis(nanoTime());
+    }
+
+    /**
+     * Convert a {@link System#nanoTime()} timestamp, as taken by the
+     * connectors, to the monotonic server time.
+     * 
+     * @param nanoTime the timestamp in nanoseconds
+     * @return the milliseconds since the clock started
+     */
+    public long toMillis(long nanoTime) {
+        return TimeUnit.NANOSECONDS.toMillis(nanoTime - startNanos);
+    }
+
+    /**
+     * Run a task after a delay.
+     * 
+     * @param task the task
+     * @param delay the delay
+     * @param unit the unit of the delay
+     */
+    public void schedule(Runnable task, long delay, TimeUnit unit) {
+        scheduler().schedule(() -> {
+            try {
+                task.run();
+            } catch (RuntimeException | Error e) {
+                // the scheduler would drop the exception silently
+                LOG.error("Task of the server clock failed", e);
+                ServerLog.info("Task of the server clock failed: " + e);
+            }
+        }, delay, unit);
+    }
+
+    /**
+     * Let the current thread wait, for example the simulated processing time
+     * of a request.
+     * 
+     * @param millis the time to wait in milliseconds
+     * @throws InterruptedException if the thread is interrupted
+     */
+    public void sleep(long millis) throws InterruptedException {
+        Thread.sleep(millis);
+    }
+
+    private synchronized ScheduledExecutorService scheduler() {
+        if (scheduler == null) {
+            scheduler = Executors.newScheduledThreadPool(1, new DaemonThreadFactory("ServerClock#"));
+        }
+        return scheduler;
+    }
+}
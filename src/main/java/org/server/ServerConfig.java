@@ -0,0 +1,516 @@
+/********************************************************************************
+ * Copyright (c) 12-20-2024 Contributors to the Eclipse Foundation
+ * 
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ * 
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0, or the Eclipse Distribution License
+ * v1.0 which is available at
+ * https://www.eclipse.org/org/documents/edl-v10.php.
+ * 
+ * SPDX-License-Identifier: EPL-2.0 OR BSD-3-Clause
+ ********************************************************************************/
+
+package org.server;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.californium.core.config.CoapConfig.CongestionControlMode;
+import org.eclipse.californium.elements.config.BooleanDefinition;
+import org.eclipse.californium.elements.config.Configuration;
+import org.eclipse.californium.elements.config.Configuration.ModuleDefinitionsProvider;
+import org.eclipse.californium.elements.config.DocumentedDefinition;
+import org.eclipse.californium.elements.config.DoubleDefinition;
+import org.eclipse.californium.elements.config.EnumDefinition;
+import org.eclipse.californium.elements.config.IntegerDefinition;
+import org.eclipse.californium.elements.config.StringDefinition;
+import org.eclipse.californium.elements.config.StringSetDefinition;
+import org.eclipse.californium.elements.config.TimeDefinition;
+
+/**
+ * Configuration definitions of the testbed server.
+ * 
+ * The definitions are stored in the "TWT." module of the
+ * Californium3.properties file, next to the Californium definitions.
+ */
+public final class ServerConfig {
+
+    public static final String MODULE = "TWT.";
+
+    /**
+     * Comma separated list of the resources limited by the per client token buckets.
+     */
+    public static final StringDefinition THROTTLE_RESOURCES = new StringDefinition(MODULE + "THROTTLE_RESOURCES",
+            "Comma separated resources limited per client by token buckets, for example largedownload,largeuploadack,largeuploadecho. Empty to disable.",
+            "");
+
+    /**
+     * Number of requests per second refilled into each token bucket.
+     */
+    public static final IntegerDefinition THROTTLE_RATE = new IntegerDefinition(MODULE + "THROTTLE_RATE",
+            "Requests per second allowed per client and resource.", 10, 1);
+
+    /**
+     * Capacity of each token bucket.
+     */
+    public static final IntegerDefinition THROTTLE_BURST = new IntegerDefinition(MODULE + "THROTTLE_BURST",
+            "Burst of requests allowed per client and resource. Maximum 1048.", 20, 1);
+
+    /**
+     * Time after which the token buckets of an idle client are removed.
+     */
+    public static final TimeDefinition THROTTLE_IDLE_TIMEOUT = new TimeDefinition(MODULE + "THROTTLE_IDLE_TIMEOUT",
+            "Time after which the token buckets of an idle client are removed.", 60, TimeUnit.SECONDS);
+
+    /**
+     * Initial limit of concurrently processed requests.
+     */
+    public static final IntegerDefinition LOAD_INITIAL_LIMIT = new IntegerDefinition(MODULE + "LOAD_INITIAL_LIMIT",
+            "Initial limit of concurrently processed requests.", 32, 1);
+
+    /**
+     * Minimum limit of concurrently processed requests.
+     */
+    public static final IntegerDefinition LOAD_MIN_LIMIT = new IntegerDefinition(MODULE + "LOAD_MIN_LIMIT",
+            "Minimum limit of concurrently processed requests.", 4, 1);
+
+    /**
+     * Maximum limit of concurrently processed requests.
+     */
+    public static final IntegerDefinition LOAD_MAX_LIMIT = new IntegerDefinition(MODULE + "LOAD_MAX_LIMIT",
+            "Maximum limit of concurrently processed requests.", 256, 1);
+
+    /**
+     * Service time above which the concurrency limit is decreased.
+     */
+    public static final TimeDefinition LOAD_TARGET_SERVICE_TIME = new TimeDefinition(MODULE + "LOAD_TARGET_SERVICE_TIME",
+            "Service time, from reception to the end of the handler, above which the concurrency limit is decreased.",
+            500, TimeUnit.MILLISECONDS);
+
+    /**
+     * Comma separated list of the resources served before all others under load.
+     */
+    public static final StringDefinition LOAD_PRIORITY_RESOURCES = new StringDefinition(MODULE + "LOAD_PRIORITY_RESOURCES",
+            "Comma separated resources which are still served when the concurrency limit is reached.",
+            "validate,stat,actuatorstat");
+
+    /**
+     * Comma separated list of the resources shed first under load.
+     */
+    public static final StringDefinition LOAD_BULK_RESOURCES = new StringDefinition(MODULE + "LOAD_BULK_RESOURCES",
+            "Comma separated resources which are shed first when approaching the concurrency limit.",
+            "largedownload,largeuploadack,largeuploadecho");
+
+    /**
+     * Comma separated list of the resources with adaptive block sizes.
+     */
+    public static final StringDefinition BLOCKSIZE_RESOURCES = new StringDefinition(MODULE + "BLOCKSIZE_RESOURCES",
+            "Comma separated resources which use a block size adapted to the retransmissions of each client.",
+            "largedownload,largeuploadack,largeuploadecho");
+
+    /**
+     * Smallest adaptive block size.
+     */
+    public static final IntegerDefinition BLOCKSIZE_MIN = new IntegerDefinition(MODULE + "BLOCKSIZE_MIN",
+            "Smallest block size selected for clients with many retransmissions.", 128, 16);
+
+    /**
+     * Minimum simulated processing latency.
+     */
+    public static final TimeDefinition LATENCY_MIN = new TimeDefinition(MODULE + "LATENCY_MIN",
+            "Minimum simulated processing latency of the sensor and large packet resources.", 20, TimeUnit.MILLISECONDS);
+
+    /**
+     * Maximum simulated processing latency.
+     */
+    public static final TimeDefinition LATENCY_MAX = new TimeDefinition(MODULE + "LATENCY_MAX",
+            "Maximum simulated processing latency of the sensor and large packet resources.", 50, TimeUnit.MILLISECONDS);
+
+    /**
+     * Largest gap between the messages of one wake.
+     */
+    public static final TimeDefinition WAKE_BURST_GAP = new TimeDefinition(MODULE + "WAKE_BURST_GAP",
+            "Largest gap between messages of a client which belong to the same wake, for the wake analysis.", 100,
+            TimeUnit.MILLISECONDS);
+
+    /**
+     * Default minimum interval of the actuator notifications.
+     */
+    public static final TimeDefinition ACTUATOR_MIN_INTERVAL = new TimeDefinition(MODULE + "ACTUATOR_MIN_INTERVAL",
+            "Minimum interval of the actuator notifications, if not sent by the client.", 5, TimeUnit.SECONDS);
+
+    /**
+     * Default maximum interval of the actuator notifications.
+     */
+    public static final TimeDefinition ACTUATOR_MAX_INTERVAL = new TimeDefinition(MODULE + "ACTUATOR_MAX_INTERVAL",
+            "Maximum interval of the actuator notifications, if not sent by the client.", 10, TimeUnit.SECONDS);
+
+    /**
+     * Time after which an actuator notification without echo is considered lost.
+     */
+    public static final TimeDefinition ACTUATOR_TIMEOUT = new TimeDefinition(MODULE + "ACTUATOR_TIMEOUT",
+            "Time after which an actuator notification without echo is considered lost.", 300, TimeUnit.SECONDS);
+
+    /**
+     * Send the actuator notifications as CON.
+     */
+    public static final BooleanDefinition ACTUATOR_CONFIRMABLE = new BooleanDefinition(MODULE + "ACTUATOR_CONFIRMABLE",
+            "Send the actuator notifications as CON instead of NON.", false);
+
+    /**
+     * Add the server send timestamp to the actuator notifications.
+     */
+    public static final BooleanDefinition ACTUATOR_TIMESTAMPS = new BooleanDefinition(MODULE + "ACTUATOR_TIMESTAMPS",
+            "Add the server send time \"actuator-sent\" to the actuator notifications, in milliseconds of the clocksync clock.",
+            false);
+
+    /**
+     * Minimum interval of the statistics notifications.
+     */
+    public static final TimeDefinition STAT_NOTIFY_INTERVAL = new TimeDefinition(MODULE + "STAT_NOTIFY_INTERVAL",
+            "Minimum interval of the notifications of the observed stat and actuatorstat resources.", 1,
+            TimeUnit.SECONDS);
+
+    /**
+     * Verbosity of the request log.
+     */
+    public static final StringSetDefinition LOG_LEVEL = new StringSetDefinition(MODULE + "LOG_LEVEL",
+            "Verbosity of the request log. BRIEF abbreviates large payloads.", ServerLog.Level.NORMAL.name(), ServerLog.Level.names());
+
+    /**
+     * Maximum payload size of the large packet resources.
+     */
+    public static final IntegerDefinition LARGE_PAYLOAD_MAX = new IntegerDefinition(MODULE + "LARGE_PAYLOAD_MAX",
+            "Maximum payload size in bytes requested from or sent to the large packet resources.", 65536, 64);
+
+    /**
+     * PSK identity allowed to update the configuration.
+     */
+    public static final StringDefinition CONFIG_PSK_IDENTITY = new StringDefinition(MODULE + "CONFIG_PSK_IDENTITY",
+            "PSK identity allowed to update the configuration and to control the recording. Empty to disable.", "");
+
+    /**
+     * Secret key of the PSK identity allowed to update the configuration.
+     */
+    public static final StringDefinition CONFIG_PSK_KEY = new StringDefinition(MODULE + "CONFIG_PSK_KEY",
+            "Secret key of the PSK identity allowed to update the configuration.", "");
+
+    /**
+     * Watch the configuration file.
+     */
+    public static final BooleanDefinition CONFIG_WATCH_FILE = new BooleanDefinition(MODULE + "CONFIG_WATCH_FILE",
+            "Reload the runtime settings when the configuration file changes.", true);
+
+    /**
+     * Enable the CoAP over TCP and CoAP over TLS endpoints.
+     */
+    public static final BooleanDefinition TCP_ENABLED = new BooleanDefinition(MODULE + "TCP_ENABLED",
+            "Enable the CoAP over TCP and CoAP over TLS endpoints (RFC 8323).", false);
+
+    /**
+     * Congestion control algorithm of the CoAP endpoint.
+     */
+    public static final EnumDefinition<CongestionControlMode> CONGESTION_CONTROL_COAP = new EnumDefinition<>(
+            MODULE + "CONGESTION_CONTROL_COAP",
+            "Congestion control algorithm of the CoAP endpoint. NULL uses the fixed retransmission timeout.",
+            CongestionControlMode.NULL, CongestionControlMode.values());
+
+    /**
+     * Congestion control algorithm of the CoAPs endpoint.
+     */
+    public static final EnumDefinition<CongestionControlMode> CONGESTION_CONTROL_COAPS = new EnumDefinition<>(
+            MODULE + "CONGESTION_CONTROL_COAPS",
+            "Congestion control algorithm of the CoAPs endpoint. NULL uses the fixed retransmission timeout.",
+            CongestionControlMode.NULL, CongestionControlMode.values());
+
+    /**
+     * File to record the received datagrams to.
+     */
+    public static final StringDefinition RECORD_FILE = new StringDefinition(MODULE + "RECORD_FILE",
+            "File to record the datagrams received by the CoAP and CoAPs endpoints to. Empty to not record.", "");
+
+    /**
+     * Multicast address of the actuator groups.
+     */
+    public static final StringDefinition MULTICAST_GROUP = new StringDefinition(MODULE + "MULTICAST_GROUP",
+            "Multicast address the CoAP endpoint joins and sends the actuator group commands to, for example 224.0.1.187. Empty to disable multicast.",
+            "");
+
+    /**
+     * Actuator groups commanded by multicast without observers.
+     */
+    public static final StringDefinition ACTUATOR_GROUPS = new StringDefinition(MODULE + "ACTUATOR_GROUPS",
+            "Comma separated actuator groups, which exist from the start and send their multicast commands even without observers.",
+            "");
+
+    /**
+     * Time after which an unused actuator group is removed.
+     */
+    public static final TimeDefinition ACTUATOR_GROUP_IDLE_TIMEOUT = new TimeDefinition(MODULE + "ACTUATOR_GROUP_IDLE_TIMEOUT",
+            "Time after which an actuator group without observers and requests is removed. Configured groups are kept.",
+            10, TimeUnit.MINUTES);
+
+    /**
+     * Hosts of the impaired clients.
+     */
+    public static final StringDefinition IMPAIR_HOSTS = new StringDefinition(MODULE + "IMPAIR_HOSTS",
+            "Comma separated IP addresses of the clients with network impairments. Empty for all clients.", "");
+
+    /**
+     * Directions of the network impairments.
+     */
+    public static final StringSetDefinition IMPAIR_DIRECTION = new StringSetDefinition(MODULE + "IMPAIR_DIRECTION",
+            "Directions of the network impairments.", "BOTH", "BOTH", "UPLINK", "DOWNLINK");
+
+    /**
+     * Seed of the network impairments.
+     */
+    public static final IntegerDefinition IMPAIR_SEED = new IntegerDefinition(MODULE + "IMPAIR_SEED",
+            "Seed of the random network impairments, combined with the client address.", 1);
+
+    /**
+     * Random loss of the network impairments.
+     */
+    public static final DoubleDefinition IMPAIR_LOSS = new DoubleDefinition(MODULE + "IMPAIR_LOSS",
+            "Probability of a datagram loss, 0 to 1. With burst loss, the loss in the good state.", 0.0, 0.0);
+
+    /**
+     * Transition into the loss bursts.
+     */
+    public static final DoubleDefinition IMPAIR_BURST_ENTER = new DoubleDefinition(MODULE + "IMPAIR_BURST_ENTER",
+            "Gilbert-Elliott probability per datagram to enter the bad state, 0 to 1. 0 to disable burst loss.", 0.0,
+            0.0);
+
+    /**
+     * Transition out of the loss bursts.
+     */
+    public static final DoubleDefinition IMPAIR_BURST_EXIT = new DoubleDefinition(MODULE + "IMPAIR_BURST_EXIT",
+            "Gilbert-Elliott probability per datagram to leave the bad state, 0 to 1.", 0.3, 0.0);
+
+    /**
+     * Loss in the loss bursts.
+     */
+    public static final DoubleDefinition IMPAIR_BURST_LOSS = new DoubleDefinition(MODULE + "IMPAIR_BURST_LOSS",
+            "Probability of a datagram loss in the Gilbert-Elliott bad state, 0 to 1.", 1.0, 0.0);
+
+    /**
+     * Delay of the network impairments.
+     */
+    public static final TimeDefinition IMPAIR_DELAY = new TimeDefinition(MODULE + "IMPAIR_DELAY",
+            "Delay of the datagrams.", 0, TimeUnit.MILLISECONDS);
+
+    /**
+     * Jitter of the network impairments.
+     */
+    public static final TimeDefinition IMPAIR_JITTER = new TimeDefinition(MODULE + "IMPAIR_JITTER",
+            "Uniform jitter of the delay, up to the delay.", 0, TimeUnit.MILLISECONDS);
+
+    /**
+     * Reordering of the network impairments.
+     */
+    public static final DoubleDefinition IMPAIR_REORDER = new DoubleDefinition(MODULE + "IMPAIR_REORDER",
+            "Probability that a datagram is held back and overtaken by the following ones, 0 to 1.", 0.0, 0.0);
+
+    /**
+     * Additional delay of reordered datagrams.
+     */
+    public static final TimeDefinition IMPAIR_REORDER_DELAY = new TimeDefinition(MODULE + "IMPAIR_REORDER_DELAY",
+            "Additional delay of a reordered datagram.", 50, TimeUnit.MILLISECONDS);
+
+    /**
+     * Duplication of the network impairments.
+     */
+    public static final DoubleDefinition IMPAIR_DUPLICATE = new DoubleDefinition(MODULE + "IMPAIR_DUPLICATE",
+            "Probability that a datagram is duplicated, 0 to 1.", 0.0, 0.0);
+
+    /**
+     * Interval of the emulated sleep windows.
+     */
+    public static final TimeDefinition IMPAIR_SLEEP_INTERVAL = new TimeDefinition(MODULE + "IMPAIR_SLEEP_INTERVAL",
+            "Wake interval of the emulated clients. Datagrams are held while a client sleeps. 0 to disable.", 0,
+            TimeUnit.MILLISECONDS);
+
+    /**
+     * Awake time of the emulated sleep windows.
+     */
+    public static final TimeDefinition IMPAIR_SLEEP_AWAKE = new TimeDefinition(MODULE + "IMPAIR_SLEEP_AWAKE",
+            "Awake time of the emulated clients in each wake interval.", 50, TimeUnit.MILLISECONDS);
+
+    /**
+     * Number of server instances of the cluster.
+     */
+    public static final IntegerDefinition CLUSTER_NODES = new IntegerDefinition(MODULE + "CLUSTER_NODES",
+            "Number of server instances sharing the DTLS load on this host. 1 for a single instance.", 1, 1);
+
+    /**
+     * Node ID of this server instance.
+     */
+    public static final IntegerDefinition CLUSTER_NODE_ID = new IntegerDefinition(MODULE + "CLUSTER_NODE_ID",
+            "Node ID of this server instance, from 0 to the number of nodes - 1. The ports are shifted by 10 per node.",
+            0, 0);
+
+    /**
+     * First port of the cluster management and statistics channels.
+     */
+    public static final IntegerDefinition CLUSTER_BASE_PORT = new IntegerDefinition(MODULE + "CLUSTER_BASE_PORT",
+            "Loopback port of the cluster management of node 0. The statistics of node N are exchanged on base + 100 + N.",
+            15684, 1);
+
+    /**
+     * Shared secret of the cluster nodes.
+     */
+    public static final StringDefinition CLUSTER_SECRET = new StringDefinition(MODULE + "CLUSTER_SECRET",
+            "Secret shared by the nodes of the cluster, authenticates the statistics requests between the nodes. Required with more than one node.",
+            "");
+
+    /**
+     * Maximum number of pending DTLS handshakes.
+     */
+    public static final IntegerDefinition DTLS_MAX_PENDING_HANDSHAKES = new IntegerDefinition(
+            MODULE + "DTLS_MAX_PENDING_HANDSHAKES",
+            "Maximum number of DTLS handshakes in progress. Further CLIENT_HELLOs with a cookie are dropped until a handshake completes or expires, the clients retransmit them. 0 for no limit.",
+            0, 0);
+
+    /**
+     * Time after which a pending DTLS handshake is expired.
+     */
+    public static final TimeDefinition DTLS_HANDSHAKE_TIMEOUT = new TimeDefinition(MODULE + "DTLS_HANDSHAKE_TIMEOUT",
+            "Time after which a DTLS handshake, which did not complete, no longer counts as pending.", 30, TimeUnit.SECONDS);
+
+    /**
+     * Start the flight recording with the server.
+     */
+    public static final BooleanDefinition PROFILE_ON_START = new BooleanDefinition(MODULE + "PROFILE_ON_START",
+            "Start a flight recording of the server events when the server starts.", false);
+
+    /**
+     * File of the flight recording.
+     */
+    public static final StringDefinition PROFILE_FILE = new StringDefinition(MODULE + "PROFILE_FILE",
+            "File the flight recording is written to when it stops or is dumped.", "twt-testbed.jfr");
+
+    /**
+     * Settings of the flight recording.
+     */
+    public static final StringDefinition PROFILE_SETTINGS = new StringDefinition(MODULE + "PROFILE_SETTINGS",
+            "Predefined JFR settings of the recording, \"default\" or \"profile\". The server events are always enabled.",
+            "profile");
+
+    /**
+     * Definitions which can be changed at runtime.
+     * 
+     * @see RuntimeConfig
+     */
+    public static final List<DocumentedDefinition<?>> RUNTIME_DEFINITIONS = Collections
+            .unmodifiableList(Arrays.<DocumentedDefinition<?>>asList(LATENCY_MIN, LATENCY_MAX, ACTUATOR_MIN_INTERVAL,
+                    ACTUATOR_MAX_INTERVAL, ACTUATOR_TIMEOUT, ACTUATOR_CONFIRMABLE, ACTUATOR_TIMESTAMPS,
+                    STAT_NOTIFY_INTERVAL, LOG_LEVEL, LARGE_PAYLOAD_MAX));
+
+    public static final ModuleDefinitionsProvider DEFINITIONS = new ModuleDefinitionsProvider() {
+
+        @Override
+        public String getModule() {
+            return MODULE;
+        }
+
+        @Override
+        public void applyDefinitions(Configuration config) {
+            config.set(THROTTLE_RESOURCES, THROTTLE_RESOURCES.getDefaultValue());
+            config.set(THROTTLE_RATE, THROTTLE_RATE.getDefaultValue());
+            config.set(THROTTLE_BURST, THROTTLE_BURST.getDefaultValue());
+            config.set(THROTTLE_IDLE_TIMEOUT, 60, TimeUnit.SECONDS);
+            config.set(LOAD_INITIAL_LIMIT, LOAD_INITIAL_LIMIT.getDefaultValue());
+            config.set(LOAD_MIN_LIMIT, LOAD_MIN_LIMIT.getDefaultValue());
+            config.set(LOAD_MAX_LIMIT, LOAD_MAX_LIMIT.getDefaultValue());
+            config.set(LOAD_TARGET_SERVICE_TIME, 500, TimeUnit.MILLISECONDS);
+            config.set(LOAD_PRIORITY_RESOURCES, LOAD_PRIORITY_RESOURCES.getDefaultValue());
+            config.set(LOAD_BULK_RESOURCES, LOAD_BULK_RESOURCES.getDefaultValue());
+            config.set(BLOCKSIZE_RESOURCES, BLOCKSIZE_RESOURCES.getDefaultValue());
+            config.set(BLOCKSIZE_MIN, BLOCKSIZE_MIN.getDefaultValue());
+            config.set(WAKE_BURST_GAP, 100, TimeUnit.MILLISECONDS);
+            config.set(LATENCY_MIN, 20, TimeUnit.MILLISECONDS);
+            config.set(LATENCY_MAX, 50, TimeUnit.MILLISECONDS);
+            config.set(ACTUATOR_MIN_INTERVAL, 5, TimeUnit.SECONDS);
+            config.set(ACTUATOR_MAX_INTERVAL, 10, TimeUnit.SECONDS);
+            config.set(ACTUATOR_TIMEOUT, 300, TimeUnit.SECONDS);
+            config.set(ACTUATOR_CONFIRMABLE, ACTUATOR_CONFIRMABLE.getDefaultValue());
+            config.set(ACTUATOR_TIMESTAMPS, ACTUATOR_TIMESTAMPS.getDefaultValue());
+            config.set(STAT_NOTIFY_INTERVAL, 1, TimeUnit.SECONDS);
+            config.set(LOG_LEVEL, LOG_LEVEL.getDefaultValue());
+            config.set(LARGE_PAYLOAD_MAX, LARGE_PAYLOAD_MAX.getDefaultValue());
+            config.set(CONFIG_PSK_IDENTITY, CONFIG_PSK_IDENTITY.getDefaultValue());
+            config.set(CONFIG_PSK_KEY, CONFIG_PSK_KEY.getDefaultValue());
+            config.set(CONFIG_WATCH_FILE, CONFIG_WATCH_FILE.getDefaultValue());
+            config.set(TCP_ENABLED, TCP_ENABLED.getDefaultValue());
+            config.set(CONGESTION_CONTROL_COAP, CONGESTION_CONTROL_COAP.getDefaultValue());
+            config.set(CONGESTION_CONTROL_COAPS, CONGESTION_CONTROL_COAPS.getDefaultValue());
+            config.set(RECORD_FILE, RECORD_FILE.getDefaultValue());
+            config.set(MULTICAST_GROUP, MULTICAST_GROUP.getDefaultValue());
+            config.set(ACTUATOR_GROUPS, ACTUATOR_GROUPS.getDefaultValue());
+            config.set(ACTUATOR_GROUP_IDLE_TIMEOUT, 10, TimeUnit.MINUTES);
+            config.set(IMPAIR_HOSTS, IMPAIR_HOSTS.getDefaultValue());
+            config.set(IMPAIR_DIRECTION, IMPAIR_DIRECTION.getDefaultValue());
+            config.set(IMPAIR_SEED, IMPAIR_SEED.getDefaultValue());
+            config.set(IMPAIR_LOSS, IMPAIR_LOSS.getDefaultValue());
+            config.set(IMPAIR_BURST_ENTER, IMPAIR_BURST_ENTER.getDefaultValue());
+            config.set(IMPAIR_BURST_EXIT, IMPAIR_BURST_EXIT.getDefaultValue());
+            config.set(IMPAIR_BURST_LOSS, IMPAIR_BURST_LOSS.getDefaultValue());
+            config.set(IMPAIR_DELAY, 0, TimeUnit.MILLISECONDS);
+            config.set(IMPAIR_JITTER, 0, TimeUnit.MILLISECONDS);
+            config.set(IMPAIR_REORDER, IMPAIR_REORDER.getDefaultValue());
+            config.set(IMPAIR_REORDER_DELAY, 50, TimeUnit.MILLISECONDS);
+            config.set(IMPAIR_DUPLICATE, IMPAIR_DUPLICATE.getDefaultValue());
+            config.set(IMPAIR_SLEEP_INTERVAL, 0, TimeUnit.MILLISECONDS);
+            config.set(IMPAIR_SLEEP_AWAKE, 50, TimeUnit.MILLISECONDS);
+            config.set(CLUSTER_NODES, CLUSTER_NODES.getDefaultValue());
+            config.set(CLUSTER_NODE_ID, CLUSTER_NODE_ID.getDefaultValue());
+            config.set(CLUSTER_BASE_PORT, CLUSTER_BASE_PORT.getDefaultValue());
+            config.set(CLUSTER_SECRET, CLUSTER_SECRET.getDefaultValue());
+            config.set(DTLS_MAX_PENDING_HANDSHAKES, DTLS_MAX_PENDING_HANDSHAKES.getDefaultValue());
+            config.set(DTLS_HANDSHAKE_TIMEOUT, 30, TimeUnit.SECONDS);
+            config.set(PROFILE_ON_START, PROFILE_ON_START.getDefaultValue());
+            config.set(PROFILE_FILE, PROFILE_FILE.getDefaultValue());
+            config.set(PROFILE_SETTINGS, PROFILE_SETTINGS.getDefaultValue());
+        }
+    };
+
+    static {
+        Configuration.addDefaultModule(DEFINITIONS);
+    }
+
+    private ServerConfig() {
+    }
+
+    /**
+     * Register the definitions of the testbed server.
+     */
+    public static void register() {
+        // definitions are registered by the static initializer
+    }
+
+    /**
+     * Get a comma separated list.
+     * 
+     * @param config the configuration
+     * @param definition the definition of the list
+     * @return the trimmed, non empty entries of the list
+     */
+    public static List<String> getList(Configuration config, StringDefinition definition) {
+        List<String> list = new ArrayList<>();
+        String value = config.get(definition);
+        if (value != null) {
+            for (String entry : value.split(",")) {
+                if (!entry.trim().isEmpty()) {
+                    list.add(entry.trim());
+                }
+            }
+        }
+        return Collections.unmodifiableList(list);
+    }
+}
@@ -0,0 +1,83 @@
+/********************************************************************************
+ * Copyright (c) 12-20-2024 Contributors to the Eclipse Foundation
+ * 
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ * 
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0, or the Eclipse Distribution License
+ * v1.0 which is available at
+ * https://www.eclipse.org/org/documents/edl-v10.php.
+ * 
+ * SPDX-License-Identifier: EPL-2.0 OR BSD-3-Clause
+ ********************************************************************************/
+
+package org.server;
+
+/**
+ * This class provides the request log of the resources.
+ * 
+ * The lines are printed to the standard output with the elapsed time since
+ * the server started. The verbosity can be changed at runtime.
+ */
+public class ServerLog {
+
+    /**
+     * Verbosity of the request log.
+     */
+    public enum Level {
+        /** No request log. */
+        QUIET,
+        /** One line per request and response, large payloads abbreviated. */
+        BRIEF,
+        /** One line per request and response, full payloads. */
+        NORMAL;
+
+        public static String[] names() {
+            Level[] levels = values();
+            String[] names = new String[levels.length];
+            for (int i = 0; i < levels.length; i++) {
+                names[i] = levels[i].name();
+            }
+            return names;
+        }
+    }
+
+    private static final int ABBREVIATE_LENGTH = 20;
+
+    private static volatile Level level = Level.NORMAL;
+
+    /**
+     * Set the verbosity of the request log.
+     * 
+     * @param level the verbosity
+     */
+    public static void setLevel(Level level) {
+        ServerLog.level = level;
+    }
+
+    /**
+     * Print a line of the request log.
+     * 
+     * @param message the message
+     */
+    public static void info(String message) {
+        if (level != Level.QUIET) {
+            System.out.println(ServerTimestamp.getElapsedTime() + message);
+        }
+    }
+
+    /**
+     * Format a payload for the request log.
+     * 
+     * @param payload the payload
+     * @return the payload, abbreviated if the log is brief
+     */
+    public static String payload(byte[] payload) {
+        if (level != Level.BRIEF || payload.length <= ABBREVIATE_LENGTH) {
+            return new String(payload);
+        }
+        return new String(payload, 0, ABBREVIATE_LENGTH) + "...";
+    }
+}
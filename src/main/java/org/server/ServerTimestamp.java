@@ -17,17 +17,58 @@
 package org.server;
 
 import java.time.Duration;
-import java.time.Instant;
 
 /**
  * This class provides a method to get the elapsed time since the server started.
+ * 
+ * The monotonic time is the clock of the latency measurements, the stations
+ * synchronize to it with the clocksync resource. The time is taken from a
+ * {@link ServerClock}, the simulation replaces it with a {@link VirtualClock}
+ * before the resources are created.
  */
 public class ServerTimestamp {
 
-    private static final Instant startTime = Instant.now();
+    private static volatile ServerClock clock = new ServerClock();
+
+    /**
+     * Get the clock of the server.
+     * 
+     * @return the clock
+     */
+    public static ServerClock getClock() {
+        return clock;
+    }
+
+    /**
+     * Set the clock of the server.
+     * 
+     * @param clock the clock
+     */
+    public static void setClock(ServerClock clock) {
+        ServerTimestamp.clock = clock;
+    }
+
+    /**
+     * Get the monotonic server time.
+     * 
+     * @return the milliseconds since the server started
+     */
+    public static long getMonotonicTime() {
+        return clock.millis();
+    }
+
+    /**
+     * Convert a {@link System#nanoTime()} timestamp to the monotonic server time.
+     * 
+     * @param nanoTime the timestamp in nanoseconds
+     * @return the milliseconds since the server started
+     */
+    public static long toMonotonicTime(long nanoTime) {
+        return clock.toMillis(nanoTime);
+    }
 
     public static String getElapsedTime() {
-        Duration elapsedTime = Duration.between(startTime, Instant.now());
+        Duration elapsedTime = Duration.ofMillis(clock.millis());
         long hours = elapsedTime.toHours();
         long minutes = elapsedTime.toMinutes() % 60;
         long seconds = elapsedTime.getSeconds() % 60;
@@ -16,11 +16,59 @@
 
 package org.server;
 
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.eclipse.californium.elements.config.Configuration;
+
 
 /**
  * This class provides a shared data object that can be accessed by multiple resources.
  */
 public class SharedData {
-    public int globalCnt = 0;
-    public ActuatorStatistics actuatorStatistics = new ActuatorStatistics();
+    public EpochCounters counters = new EpochCounters();
+    public ServerClock clock;
+    public RuntimeConfig config;
+    public SimulatedLatency latency;
+    public ActuatorStatistics actuatorStatistics;
+    public TokenBucketLimiter throttling;
+    public ConcurrencyLimiter concurrency;
+    public BlockSizeSelector blockSize;
+    public WakeAnalyzer wake;
+    public NetworkImpairment impairment;
+    public HandshakeLimiter handshakes;
+    public ProfileRecorder profiler;
+    public List<RttEstimator> rtt = new CopyOnWriteArrayList<>();
+    public ClusterNode cluster;
+
+    /**
+     * Constructor for the SharedData class.
+     * 
+     * @param config the server configuration
+     */
+    public SharedData(Configuration config) {
+        this(config, ServerTimestamp.getClock());
+    }
+
+    /**
+     * Constructor for the SharedData class with a clock.
+     * 
+     * @param config the server configuration
+     * @param clock the clock of the actuators, the statistics and the
+     *            simulated latency
+     */
+    public SharedData(Configuration config, ServerClock clock) {
+        this.clock = clock;
+        this.config = new RuntimeConfig(config);
+        latency = new SimulatedLatency(this.config, clock);
+        actuatorStatistics = new ActuatorStatistics(this.config, clock);
+        throttling = new TokenBucketLimiter(config);
+        concurrency = new ConcurrencyLimiter(config);
+        blockSize = new BlockSizeSelector(config);
+        wake = new WakeAnalyzer(config);
+        impairment = new NetworkImpairment(config);
+        handshakes = new HandshakeLimiter(config);
+        profiler = new ProfileRecorder(config);
+        cluster = new ClusterNode(config, this);
+    }
 }
\ No newline at end of file
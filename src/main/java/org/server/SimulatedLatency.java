@@ -0,0 +1,70 @@
+/********************************************************************************
+ * Copyright (c) 12-20-2024 Contributors to the Eclipse Foundation
+ * 
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ * 
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0, or the Eclipse Distribution License
+ * v1.0 which is available at
+ * https://www.eclipse.org/org/documents/edl-v10.php.
+ * 
+ * SPDX-License-Identifier: EPL-2.0 OR BSD-3-Clause
+ ********************************************************************************/
+
+package org.server;
+
+/**
+ * This class simulates the processing latency of the resources.
+ * 
+ * The latency range is read from the runtime settings for every request.
+ */
+public class SimulatedLatency {
+
+    // simulated delay of the current request, for the flight recorder
+    private static final ThreadLocal<long[]> DELAY = ThreadLocal.withInitial(() -> new long[1]);
+
+    private RuntimeConfig config;
+    private ServerClock clock;
+
+    /**
+     * Constructor for SimulatedLatency.
+     * 
+     * @param config the runtime configuration
+     * @param clock the clock to wait on
+     */
+    public SimulatedLatency(RuntimeConfig config, ServerClock clock) {
+        this.config = config;
+        this.clock = clock;
+    }
+
+    /**
+     * Wait a random time to simulate processing and latency.
+     * 
+     * @return the simulated latency in milliseconds
+     */
+    public long simulate() {
+        RuntimeSettings settings = config.get();
+        long delay = settings.latencyMinMs + (long) (Math.random() * (settings.latencyMaxMs - settings.latencyMinMs));
+        try {
+            clock.sleep(delay);
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        }
+        DELAY.get()[0] += delay;
+        return delay;
+    }
+
+    /**
+     * Get and reset the delay simulated by the current thread.
+     * 
+     * @return the simulated delay in milliseconds since the last call
+     */
+    static long takeDelay() {
+        long[] delay = DELAY.get();
+        long taken = delay[0];
+        delay[0] = 0;
+        return taken;
+    }
+}
@@ -16,16 +16,13 @@
 
 package org.server;
 
-import org.eclipse.californium.core.CoapResource;
-import org.eclipse.californium.core.coap.CoAP.ResponseCode;
-import org.eclipse.californium.core.server.resources.CoapExchange;
-
 /**
  * This class is a resource that handles the GET requests for the stat resource.
  * 
  * This resource is used by all uses cases to retrieve the global counter.
+ * Observers are notified when the counter changes.
  */
-public class StatResource extends CoapResource {
+public class StatResource extends ObservableStatResource {
 
     private SharedData sharedData;
 
@@ -37,25 +34,27 @@ public class StatResource extends CoapResource {
      */
     public StatResource(SharedData sharedData) {
         // Set resource identifier
-        super("stat");
+        super("stat", "Stat Resource", sharedData);
         this.sharedData = sharedData;
-        getAttributes().setTitle("Stat Resource");
     }
 
     /**
-     * This method handles the GET request for the stat resource.
+     * Get the global counter.
      * 
-     * @param exchange The exchange containing the request.
+     * @return the global counter
      */
-    @Override   
-    public void handleGET(CoapExchange exchange) {
-
-        // Log the request
-        System.out.println(ServerTimestamp.getElapsedTime()+"Received GET, Resource: stat");
+    @Override
+    protected String snapshot() {
+        return Long.toString(this.sharedData.cluster.stat());
+    }
 
-        // Respond to the request
-        byte[] content = (Integer.toString(this.sharedData.globalCnt)).getBytes();
-        exchange.respond(ResponseCode.CONTENT, content);
-        System.out.println(ServerTimestamp.getElapsedTime()+"Sent Response, Resource: stat");
+    /**
+     * The counter is cheap to read, compare it every time.
+     * 
+     * @return {@link #UNKNOWN_VERSION}
+     */
+    @Override
+    protected long version() {
+        return UNKNOWN_VERSION;
     }
-}
\ No newline at end of file
+}
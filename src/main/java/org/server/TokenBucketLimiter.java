@@ -0,0 +1,158 @@
+/********************************************************************************
+ * Copyright (c) 12-20-2024 Contributors to the Eclipse Foundation
+ * 
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ * 
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0, or the Eclipse Distribution License
+ * v1.0 which is available at
+ * https://www.eclipse.org/org/documents/edl-v10.php.
+ * 
+ * SPDX-License-Identifier: EPL-2.0 OR BSD-3-Clause
+ ********************************************************************************/
+
+package org.server;
+
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.eclipse.californium.elements.config.Configuration;
+
+/**
+ * Per client and per resource token buckets.
+ * 
+ * Each client gets one AtomicLongArray with one slot per limited resource.
+ * A slot packs the time of the last refill (upper bits, milliseconds since
+ * the limiter was created) and the available tokens (lower bits, in
+ * thousandths of a token), so a bucket is updated with a single CAS.
+ * Buckets of idle clients are removed while acquiring, at most once per
+ * idle timeout.
+ */
+public class TokenBucketLimiter {
+
+    private static final int TOKEN_BITS = 20;
+    private static final long TOKEN_MASK = (1L << TOKEN_BITS) - 1;
+    private static final long ONE_TOKEN = 1000;
+    private static final int MAX_BURST = (int) (TOKEN_MASK / ONE_TOKEN);
+
+    private final Map<InetSocketAddress, AtomicLongArray> buckets = new ConcurrentHashMap<>();
+    private final List<String> resources;
+    private final AtomicLongArray throttled;
+    private final long start = System.nanoTime();
+    private final AtomicLong nextSweep = new AtomicLong();
+    private final int rate;        // tokens per second, thousandths of a token per millisecond
+    private final long capacity;   // thousandths of a token
+    private final long idleTimeoutMs;
+
+    /**
+     * Create the token buckets from the configuration.
+     * 
+     * @param config the configuration
+     */
+    public TokenBucketLimiter(Configuration config) {
+        this.resources = ServerConfig.getList(config, ServerConfig.THROTTLE_RESOURCES);
+        this.throttled = new AtomicLongArray(resources.size());
+        this.rate = config.get(ServerConfig.THROTTLE_RATE);
+        this.capacity = Math.min(config.get(ServerConfig.THROTTLE_BURST), MAX_BURST) * ONE_TOKEN;
+        this.idleTimeoutMs = config.get(ServerConfig.THROTTLE_IDLE_TIMEOUT, TimeUnit.MILLISECONDS);
+        this.nextSweep.set(idleTimeoutMs);
+    }
+
+    /**
+     * Get the index of a limited resource.
+     * 
+     * @param resource the resource name
+     * @return the index, or -1 if the resource is not limited
+     */
+    public int indexOf(String resource) {
+        return resources.indexOf(resource);
+    }
+
+    /**
+     * Try to take a token from the bucket of a client.
+     * 
+     * @param peer the address of the client
+     * @param index the index of the resource
+     * @return 0 if a token was taken, otherwise the number of seconds until
+     *         the next token is available
+     */
+    public long tryAcquire(InetSocketAddress peer, int index) {
+        long now = now();
+        sweep(now);
+        AtomicLongArray slots = buckets.computeIfAbsent(peer, key -> newBuckets(now));
+        while (true) {
+            long slot = slots.get(index);
+            long tokens = refill(slot, now);
+            if (tokens < ONE_TOKEN) {
+                throttled.incrementAndGet(index);
+                long waitMs = (ONE_TOKEN - tokens + rate - 1) / rate;
+                return Math.max(1, (waitMs + 999) / 1000);
+            }
+            if (slots.compareAndSet(index, slot, pack(now, tokens - ONE_TOKEN))) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Get the statistics as a string.
+     * 
+     * @return the statistics as a string
+     */
+    public String getStats() {
+        StringBuilder stats = new StringBuilder();
+        long total = 0;
+        for (int index = 0; index < resources.size(); index++) {
+            long count = throttled.get(index);
+            total += count;
+            stats.append(resources.get(index)).append(";").append(count).append("\n");
+        }
+        stats.append("throttled;").append(total).append("\n");
+        stats.append("clients;").append(buckets.size());
+        return stats.toString();
+    }
+
+    private AtomicLongArray newBuckets(long now) {
+        AtomicLongArray slots = new AtomicLongArray(resources.size());
+        for (int index = 0; index < slots.length(); index++) {
+            slots.set(index, pack(now, capacity));
+        }
+        return slots;
+    }
+
+    private long refill(long slot, long now) {
+        long elapsed = now - (slot >>> TOKEN_BITS);
+        return Math.min(capacity, (slot & TOKEN_MASK) + elapsed * rate);
+    }
+
+    private void sweep(long now) {
+        long next = nextSweep.get();
+        if (now < next || !nextSweep.compareAndSet(next, now + idleTimeoutMs)) {
+            return;
+        }
+        buckets.values().removeIf(slots -> {
+            for (int index = 0; index < slots.length(); index++) {
+                long slot = slots.get(index);
+                if (now - (slot >>> TOKEN_BITS) < idleTimeoutMs || refill(slot, now) < capacity) {
+                    return false;
+                }
+            }
+            return true;
+        });
+    }
+
+    private long now() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
+    private static long pack(long time, long tokens) {
+        return (time << TOKEN_BITS) | tokens;
+    }
+}
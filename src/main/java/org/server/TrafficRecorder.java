@@ -0,0 +1,195 @@
+/********************************************************************************
+ * Copyright (c) 12-20-2024 Contributors to the Eclipse Foundation
+ * 
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ * 
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0, or the Eclipse Distribution License
+ * v1.0 which is available at
+ * https://www.eclipse.org/org/documents/edl-v10.php.
+ * 
+ * SPDX-License-Identifier: EPL-2.0 OR BSD-3-Clause
+ ********************************************************************************/
+
+
+package org.server;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.security.Principal;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.californium.elements.RawData;
+import org.eclipse.californium.elements.auth.PreSharedKeyIdentity;
+
+/**
+ * Recorder of the datagrams received by the endpoints.
+ * 
+ * The recording is a binary file which starts with a header, followed by one
+ * record per datagram with the time since the start of the recording, the
+ * endpoint, the peer address, the PSK identity of the peer and the CoAP
+ * message. The file is flushed once per second on the {@link ServerClock},
+ * also when no more datagrams arrive, and when the server stops.
+ * 
+ * @see RecordingConnector
+ * @see TrafficReplay
+ */
+public class TrafficRecorder {
+
+    private static final String MAGIC = "TWT-RECORDING";
+    private static final int VERSION = 1;
+    private static final long FLUSH_INTERVAL_MS = 1000;
+
+    private final DataOutputStream out;
+    private final ServerClock clock;
+    private final long start = System.nanoTime();
+    private long records;
+    private long flushedRecords;
+    private boolean failed;
+    private boolean closed;
+
+    /**
+     * A recorded datagram.
+     */
+    public static class Record {
+
+        public final long nanos;
+        public final String endpoint;
+        public final String host;
+        public final int port;
+        public final String identity;
+        public final byte[] bytes;
+
+        private Record(long nanos, String endpoint, String host, int port, String identity, byte[] bytes) {
+            this.nanos = nanos;
+            this.endpoint = endpoint;
+            this.host = host;
+            this.port = port;
+            this.identity = identity;
+            this.bytes = bytes;
+        }
+    }
+
+    /**
+     * Create a recording.
+     * 
+     * @param file the file of the recording, overwritten if it exists
+     * @param clock the clock which flushes the recording
+     * @throws IOException if the file can not be created
+     */
+    public TrafficRecorder(File file, ServerClock clock) throws IOException {
+        this.clock = clock;
+        out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+        out.writeUTF(MAGIC);
+        out.writeInt(VERSION);
+        Runtime.getRuntime().addShutdownHook(new Thread(this::close, "TrafficRecorder"));
+        clock.schedule(this::flush, FLUSH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Record a received datagram.
+     * 
+     * @param endpoint the name of the endpoint
+     * @param msg the datagram
+     */
+    public synchronized void record(String endpoint, RawData msg) {
+        if (failed || closed) {
+            return;
+        }
+        long now = System.nanoTime();
+        InetSocketAddress peer = msg.getInetSocketAddress();
+        Principal identity = msg.getSenderIdentity();
+        try {
+            out.writeLong(now - start);
+            out.writeUTF(endpoint);
+            out.writeUTF(peer.getAddress().getHostAddress());
+            out.writeInt(peer.getPort());
+            out.writeUTF(identity instanceof PreSharedKeyIdentity ? ((PreSharedKeyIdentity) identity).getIdentity() : "");
+            out.writeInt(msg.getSize());
+            out.write(msg.getBytes());
+            records++;
+        } catch (IOException e) {
+            failed = true;
+            System.out.println(ServerTimestamp.getElapsedTime() + "Recording failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Flush the recorded datagrams and schedule the next flush.
+     */
+    private synchronized void flush() {
+        if (failed || closed) {
+            return;
+        }
+        if (records > flushedRecords) {
+            try {
+                out.flush();
+                flushedRecords = records;
+            } catch (IOException e) {
+                failed = true;
+                System.out.println(ServerTimestamp.getElapsedTime() + "Recording failed: " + e.getMessage());
+                return;
+            }
+        }
+        clock.schedule(this::flush, FLUSH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Flush and close the recording.
+     */
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            out.close();
+            System.out.println(ServerTimestamp.getElapsedTime() + "Recorded " + records + " datagrams");
+        } catch (IOException e) {
+            System.out.println(ServerTimestamp.getElapsedTime() + "Recording failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Check the header of a recording.
+     * 
+     * @param in the recording
+     * @throws IOException if the header is not valid
+     */
+    public static void readHeader(DataInputStream in) throws IOException {
+        if (!MAGIC.equals(in.readUTF()) || in.readInt() != VERSION) {
+            throw new IOException("Not a recording of this version");
+        }
+    }
+
+    /**
+     * Read the next record of a recording.
+     * 
+     * @param in the recording
+     * @return the record, or {@code null} at the end of the recording
+     * @throws IOException if the recording can not be read
+     */
+    public static Record read(DataInputStream in) throws IOException {
+        long nanos;
+        try {
+            nanos = in.readLong();
+        } catch (EOFException e) {
+            return null;
+        }
+        String endpoint = in.readUTF();
+        String host = in.readUTF();
+        int port = in.readInt();
+        String identity = in.readUTF();
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new Record(nanos, endpoint, host, port, identity, bytes);
+    }
+}
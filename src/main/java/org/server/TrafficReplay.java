@@ -0,0 +1,199 @@
+/********************************************************************************
+ * Copyright (c) 12-20-2024 Contributors to the Eclipse Foundation
+ * 
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ * 
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0, or the Eclipse Distribution License
+ * v1.0 which is available at
+ * https://www.eclipse.org/org/documents/edl-v10.php.
+ * 
+ * SPDX-License-Identifier: EPL-2.0 OR BSD-3-Clause
+ ********************************************************************************/
+
+
+package org.server;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.security.Principal;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.californium.core.CoapServer;
+import org.eclipse.californium.core.network.CoapEndpoint;
+import org.eclipse.californium.elements.auth.PreSharedKeyIdentity;
+import org.eclipse.californium.elements.config.Configuration;
+
+/**
+ * Replay of a recording into an in-process server.
+ * 
+ * The recorded datagrams are injected into a server with the same resources
+ * and admission control as the testbed server, through a {@link ReplayConnector}
+ * instead of sockets. Datagrams recorded at the CoAPs endpoint were recorded
+ * decrypted, they are replayed at the CoAP layer with the PSK identity of the
+ * peer. Each recorded peer is mapped to its own address in 10.0.0.0/8, so
+ * recordings of different networks can be replayed without collisions.
+ * 
+ * Run it with:
+ * 
+ * <pre>
+ * java -cp twt-testbed-server.jar org.server.TrafficReplay recording [speed] [baseline]
+ * </pre>
+ * 
+ * The speed is a factor of the recorded timing (1 for the original timing) or
+ * "max" to inject the datagrams as fast as possible. The report is printed
+ * with one "key;value" line per value. If the report of a previous run is
+ * given as baseline, each line also contains the baseline value and the
+ * change in percent, to compare builds.
+ */
+public class TrafficReplay {
+
+    private static final long DRAIN_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.out.println("Usage: TrafficReplay recording [speed|max] [baseline]");
+            return;
+        }
+        File recording = new File(args[0]);
+        double speed = 1;
+        if (args.length > 1) {
+            speed = args[1].equals("max") ? 0 : Double.parseDouble(args[1]);
+        }
+
+        Configuration configuration = Main.loadConfiguration(new String[] { ServerConfig.LOG_LEVEL.getKey() + "=QUIET" });
+        CoapServer server = new CoapServer(configuration);
+        Main.createServer(server, configuration);
+        ReplayConnector connector = new ReplayConnector();
+        CoapEndpoint.Builder builder = new CoapEndpoint.Builder();
+        builder.setConnector(connector);
+        builder.setConfiguration(configuration);
+        server.addEndpoint(builder.build());
+        server.start();
+
+        Map<String, InetSocketAddress> peers = new HashMap<>();
+        long records = 0;
+        long start = System.nanoTime();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(recording)))) {
+            TrafficRecorder.readHeader(in);
+            TrafficRecorder.Record record;
+            while ((record = TrafficRecorder.read(in)) != null) {
+                if (speed > 0) {
+                    long wait = start + (long) (record.nanos / speed) - System.nanoTime();
+                    if (wait > 0) {
+                        TimeUnit.NANOSECONDS.sleep(wait);
+                    }
+                }
+                String key = record.endpoint + "/" + record.host + ":" + record.port + "/" + record.identity;
+                InetSocketAddress peer = peers.get(key);
+                if (peer == null) {
+                    int index = peers.size() + 1;
+                    peer = new InetSocketAddress(InetAddress.getByAddress(new byte[] { 10, (byte) (index >> 16),
+                            (byte) (index >> 8), (byte) index }), record.port);
+                    peers.put(key, peer);
+                }
+                Principal identity = record.identity.isEmpty() ? null : new PreSharedKeyIdentity(record.identity);
+                connector.inject(record.bytes, peer, identity);
+                records++;
+            }
+        }
+
+        // Wait for the outstanding responses
+        long end = System.nanoTime() + DRAIN_TIMEOUT_NANOS;
+        while (connector.getOutstanding() > 0 && System.nanoTime() < end) {
+            Thread.sleep(10);
+        }
+        long last = Math.max(connector.getLastResponse(), start);
+        server.destroy();
+
+        Map<String, Double> report = new LinkedHashMap<>();
+        long[] latencies = connector.getLatencies();
+        Arrays.sort(latencies);
+        double duration = (last - start) / 1000000.0;
+        report.put("records", (double) records);
+        report.put("peers", (double) peers.size());
+        report.put("requests", (double) connector.getRequests());
+        report.put("responses", (double) connector.getResponses());
+        report.put("errors", (double) connector.getErrors());
+        report.put("unanswered", (double) connector.getOutstanding());
+        report.put("duration_ms", duration);
+        report.put("throughput_rps", duration > 0 ? connector.getResponses() * 1000 / duration : 0);
+        report.put("latency_mean_ms", mean(latencies));
+        report.put("latency_p50_ms", percentile(latencies, 50));
+        report.put("latency_p90_ms", percentile(latencies, 90));
+        report.put("latency_p99_ms", percentile(latencies, 99));
+        report.put("latency_max_ms", percentile(latencies, 100));
+
+        Map<String, Double> baseline = args.length > 2 ? readReport(new File(args[2])) : null;
+        for (Map.Entry<String, Double> entry : report.entrySet()) {
+            StringBuilder line = new StringBuilder(entry.getKey()).append(";").append(format(entry.getValue()));
+            Double previous = baseline == null ? null : baseline.get(entry.getKey());
+            if (previous != null) {
+                line.append(";").append(format(previous)).append(";");
+                line.append(previous == 0 ? "-" : String.format("%+.1f%%", (entry.getValue() - previous) * 100 / previous));
+            }
+            System.out.println(line);
+        }
+    }
+
+    private static double mean(long[] latencies) {
+        if (latencies.length == 0) {
+            return 0;
+        }
+        double sum = 0;
+        for (long latency : latencies) {
+            sum += latency;
+        }
+        return sum / latencies.length / 1000000.0;
+    }
+
+    private static double percentile(long[] sorted, int percent) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(sorted.length * percent / 100.0) - 1;
+        return sorted[Math.max(0, index)] / 1000000.0;
+    }
+
+    private static String format(double value) {
+        return value == Math.rint(value) ? Long.toString((long) value) : String.format("%.3f", value);
+    }
+
+    /**
+     * Read the values of a previous report.
+     * 
+     * @param file the report
+     * @return the values by key
+     * @throws IOException if the report can not be read
+     */
+    private static Map<String, Double> readReport(File file) throws IOException {
+        Map<String, Double> report = new HashMap<>();
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.split(";");
+                if (parts.length >= 2) {
+                    try {
+                        report.put(parts[0], Double.parseDouble(parts[1]));
+                    } catch (NumberFormatException e) {
+                        // not a value of the report
+                    }
+                }
+            }
+        }
+        return report;
+    }
+}
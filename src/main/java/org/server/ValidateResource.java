@@ -48,13 +48,14 @@ public class ValidateResource extends CoapResource {
     @Override
     public void handleGET(CoapExchange exchange) {
 
-        System.out.println(ServerTimestamp.getElapsedTime()+"Received GET, Resource: validate");
+        ServerLog.info("Received GET, Resource: validate");
         
-        // Clear actuator statistics and reset global count
-        this.sharedData.globalCnt = 0;
+        // Clear actuator statistics and start a new counter epoch
+        this.sharedData.counters.reset();
         this.sharedData.actuatorStatistics.clear();
+        this.sharedData.cluster.reset();
  
         exchange.respond(ResponseCode.CONTENT, "valid");
-        System.out.println(ServerTimestamp.getElapsedTime()+"Sent Response, Resource: validate, Payload: valid");
+        ServerLog.info("Sent Response, Resource: validate, Payload: valid");
     }
 }
\ No newline at end of file
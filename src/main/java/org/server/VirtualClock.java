@@ -0,0 +1,147 @@
+/********************************************************************************
+ * Copyright (c) 12-20-2024 Contributors to the Eclipse Foundation
+ * 
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ * 
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0, or the Eclipse Distribution License
+ * v1.0 which is available at
+ * https://www.eclipse.org/org/documents/edl-v10.php.
+ * 
+ * SPDX-License-Identifier: EPL-2.0 OR BSD-3-Clause
+ ********************************************************************************/
+
+package org.server;
+
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Virtual clock of the simulation mode.
+ * 
+ * The time only advances while {@link #advance(long, TimeUnit)} runs the
+ * scheduled tasks: the tasks run in the order of their time, and the clock
+ * is set to the time of each task before it runs. A task may schedule
+ * further tasks, so an actuator which reschedules its notifications every
+ * few seconds runs days of virtual time in seconds of real time. Sleeping
+ * advances the clock without waiting.
+ * 
+ * The tasks run on the thread calling {@link #advance(long, TimeUnit)}.
+ * Tasks of the same time run in the order they were scheduled, so a
+ * simulation with seeded random numbers is repeatable.
+ */
+public class VirtualClock extends ServerClock {
+
+    private final PriorityQueue<Task> tasks = new PriorityQueue<>();
+    private long now;
+    private long sequence;
+    private long executed;
+
+    @Override
+    public synchronized long nanoTime() {
+        return now;
+    }
+
+    @Override
+    public long millis() {
+        return TimeUnit.NANOSECONDS.toMillis(nanoTime());
+    }
+
+    /**
+     * Convert a {@link System#nanoTime()} timestamp to the monotonic server
+     * time.
+     * 
+     * Real timestamps have no virtual time, the current virtual time is
+     * returned.
+     * 
+     * @param nanoTime the timestamp in nanoseconds, ignored
+     * @return the milliseconds since the clock started
+     */
+    @Override
+    public long toMillis(long nanoTime) {
+        return millis();
+    }
+
+    @Override
+    public synchronized void schedule(Runnable task, long delay, TimeUnit unit) {
+        tasks.add(new Task(now + unit.toNanos(Math.max(0, delay)), sequence++, task));
+    }
+
+    @Override
+    public synchronized void sleep(long millis) {
+        now += TimeUnit.MILLISECONDS.toNanos(Math.max(0, millis));
+    }
+
+    /**
+     * Advance the clock and run the tasks which are due.
+     * 
+     * @param duration the virtual time to advance
+     * @param unit the unit of the duration
+     * @return the number of tasks run
+     */
+    public long advance(long duration, TimeUnit unit) {
+        long end;
+        synchronized (this) {
+            end = now + unit.toNanos(duration);
+        }
+        long count = 0;
+        while (true) {
+            Task task;
+            synchronized (this) {
+                task = tasks.peek();
+                if (task == null || task.time > end) {
+                    now = Math.max(now, end);
+                    return count;
+                }
+                tasks.poll();
+                // a task which slept may have pushed the clock beyond the next task
+                now = Math.max(now, task.time);
+                executed++;
+            }
+            task.runnable.run();
+            count++;
+        }
+    }
+
+    /**
+     * Get the number of scheduled tasks.
+     * 
+     * @return the number of tasks, which did not run yet
+     */
+    public synchronized int pending() {
+        return tasks.size();
+    }
+
+    /**
+     * Get the number of tasks run since the clock was created.
+     * 
+     * @return the number of tasks run
+     */
+    public synchronized long executed() {
+        return executed;
+    }
+
+    /**
+     * Scheduled task.
+     */
+    private static class Task implements Comparable<Task> {
+
+        private final long time;
+        private final long sequence;
+        private final Runnable runnable;
+
+        private Task(long time, long sequence, Runnable runnable) {
+            this.time = time;
+            this.sequence = sequence;
+            this.runnable = runnable;
+        }
+
+        @Override
+        public int compareTo(Task other) {
+            int result = Long.compare(time, other.time);
+            return result != 0 ? result : Long.compare(sequence, other.sequence);
+        }
+    }
+}
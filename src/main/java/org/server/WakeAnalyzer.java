@@ -0,0 +1,226 @@
+/********************************************************************************
+ * Copyright (c) 12-20-2024 Contributors to the Eclipse Foundation
+ * 
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ * 
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0, or the Eclipse Distribution License
+ * v1.0 which is available at
+ * https://www.eclipse.org/org/documents/edl-v10.php.
+ * 
+ * SPDX-License-Identifier: EPL-2.0 OR BSD-3-Clause
+ ********************************************************************************/
+
+package org.server;
+
+import java.net.InetSocketAddress;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.californium.core.coap.EmptyMessage;
+import org.eclipse.californium.core.coap.Message;
+import org.eclipse.californium.core.coap.Request;
+import org.eclipse.californium.core.coap.Response;
+import org.eclipse.californium.core.network.interceptors.MessageInterceptorAdapter;
+import org.eclipse.californium.elements.config.Configuration;
+
+/**
+ * Streaming analysis of the packet arrival times of the clients.
+ * 
+ * The analyzer is added as interceptor to the UDP and DTLS endpoints. A
+ * station with TWT only transmits during its service periods, so its
+ * messages arrive in bursts. Messages closer than the configured burst gap
+ * belong to the same wake, and the interval between the first messages of
+ * consecutive wakes is analyzed in constant memory per client:
+ * 
+ * <ul>
+ * <li>the mean and variance with Welford's algorithm,</li>
+ * <li>the quantiles with a {@link QuantileSketch},</li>
+ * <li>the wake period: intervals close to a multiple of the current estimate
+ * are divided by it, so skipped wakes still count, and smoothed. The first
+ * estimate is the most frequent interval of the sketch.</li>
+ * <li>drift: a two-sided Page-Hinkley test on the relative deviation from
+ * the period. After a change, the period follows a faster average for a
+ * few wakes.</li>
+ * </ul>
+ */
+public class WakeAnalyzer extends MessageInterceptorAdapter {
+
+    private static final int MIN_SAMPLES = 8;
+    private static final double PERIOD_ALPHA = 1.0 / 32;
+    private static final double FAST_ALPHA = 1.0 / 4;
+    private static final double MULTIPLE_TOLERANCE = 0.2;
+    private static final double DRIFT_DELTA = 0.01;
+    private static final double DRIFT_LAMBDA = 0.5;
+    private static final long IDLE_TIMEOUT_MS = TimeUnit.MINUTES.toMillis(10);
+
+    private final Map<InetSocketAddress, Peer> peers = new ConcurrentHashMap<>();
+    private final long burstGapNanos;
+    private final AtomicLong nextSweep = new AtomicLong();
+
+    /**
+     * Create the analyzer from the configuration.
+     * 
+     * @param config the configuration
+     */
+    public WakeAnalyzer(Configuration config) {
+        this.burstGapNanos = config.get(ServerConfig.WAKE_BURST_GAP, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void receiveRequest(Request request) {
+        arrived(request);
+    }
+
+    @Override
+    public void receiveResponse(Response response) {
+        arrived(response);
+    }
+
+    @Override
+    public void receiveEmptyMessage(EmptyMessage message) {
+        arrived(message);
+    }
+
+    /**
+     * Get the statistics as a string.
+     * 
+     * One line per client with the analyzed wakes, the mean, standard
+     * deviation and quantiles of the intervals, the estimated wake period,
+     * the current deviation of the period in percent and the number of
+     * detected period changes. Times are in milliseconds.
+     * 
+     * @return the statistics as a string
+     */
+    public String getStats() {
+        StringBuilder stats = new StringBuilder();
+        stats.append("client;wakes;mean_ms;stddev_ms;p50_ms;p90_ms;p99_ms;period_ms;drift_percent;drifts");
+        for (Map.Entry<InetSocketAddress, Peer> entry : peers.entrySet()) {
+            Peer peer = entry.getValue();
+            synchronized (peer) {
+                stats.append("\n").append(entry.getKey()).append(";");
+                stats.append(peer.intervals.count()).append(";");
+                stats.append(Math.round(peer.mean)).append(";");
+                stats.append(Math.round(peer.stddev())).append(";");
+                stats.append(Math.round(peer.intervals.quantile(0.5))).append(";");
+                stats.append(Math.round(peer.intervals.quantile(0.9))).append(";");
+                stats.append(Math.round(peer.intervals.quantile(0.99))).append(";");
+                stats.append(Math.round(peer.period)).append(";");
+                stats.append(String.format("%.1f", peer.drift() * 100)).append(";");
+                stats.append(peer.drifts);
+            }
+        }
+        return stats.toString();
+    }
+
+    private void arrived(Message message) {
+        long timestamp = message.getNanoTimestamp();
+        if (timestamp == 0) {
+            timestamp = System.nanoTime();
+        }
+        peer(message.getSourceContext().getPeerAddress()).arrived(timestamp);
+    }
+
+    private Peer peer(InetSocketAddress address) {
+        long now = TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+        long next = nextSweep.get();
+        if (now >= next && nextSweep.compareAndSet(next, now + IDLE_TIMEOUT_MS)) {
+            long idle = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(IDLE_TIMEOUT_MS);
+            peers.values().removeIf(peer -> peer.isIdle(idle));
+        }
+        return peers.computeIfAbsent(address, key -> new Peer());
+    }
+
+    /**
+     * Wake analysis of one client.
+     */
+    private class Peer {
+
+        private final QuantileSketch intervals = new QuantileSketch();
+        private long wakeNanos;
+        private long lastNanos;
+        private boolean started;
+        // Welford
+        private double mean;
+        private double m2;
+        // period and drift
+        private double period;
+        private double fastPeriod;
+        private double driftUp;
+        private double driftDown;
+        private long drifts;
+        private int settling;
+
+        private synchronized boolean isIdle(long idle) {
+            return lastNanos - idle < 0;
+        }
+
+        private synchronized void arrived(long nanos) {
+            if (!started) {
+                started = true;
+                wakeNanos = nanos;
+            } else if (nanos - lastNanos > burstGapNanos) {
+                // first message of a new wake
+                add((nanos - wakeNanos) / 1000000.0);
+                wakeNanos = nanos;
+            }
+            lastNanos = nanos;
+        }
+
+        private void add(double interval) {
+            intervals.add(interval);
+            long count = intervals.count();
+            double delta = interval - mean;
+            mean += delta / count;
+            m2 += delta * (interval - mean);
+
+            if (count < MIN_SAMPLES) {
+                return;
+            }
+            if (period == 0) {
+                period = intervals.mode();
+                fastPeriod = period;
+                return;
+            }
+            // skipped wakes are close to multiples of the period, anything else is a period change
+            double wakes = Math.max(1, Math.round(interval / period));
+            if (wakes > 1 && Math.abs(interval / (wakes * period) - 1) > MULTIPLE_TOLERANCE) {
+                wakes = Math.max(1, Math.floor(interval / period));
+            }
+            double sample = interval / wakes;
+            fastPeriod += FAST_ALPHA * (sample - fastPeriod);
+            if (settling > 0) {
+                // follow the new period quickly after a change
+                settling--;
+                period = fastPeriod;
+                return;
+            }
+            period += PERIOD_ALPHA * (sample - period);
+
+            double deviation = sample / period - 1;
+            driftUp = Math.max(0, driftUp + deviation - DRIFT_DELTA);
+            driftDown = Math.max(0, driftDown - deviation - DRIFT_DELTA);
+            if (driftUp > DRIFT_LAMBDA || driftDown > DRIFT_LAMBDA) {
+                drifts++;
+                period = fastPeriod;
+                settling = MIN_SAMPLES;
+                driftUp = 0;
+                driftDown = 0;
+                ServerLog.info("Wake period changed to " + Math.round(period) + " ms");
+            }
+        }
+
+        private double stddev() {
+            long count = intervals.count();
+            return count < 2 ? 0 : Math.sqrt(m2 / (count - 1));
+        }
+
+        private double drift() {
+            return period == 0 ? 0 : fastPeriod / period - 1;
+        }
+    }
+}
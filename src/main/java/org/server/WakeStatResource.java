@@ -0,0 +1,61 @@
+/********************************************************************************
+ * Copyright (c) 12-20-2024 Contributors to the Eclipse Foundation
+ * 
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ * 
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0, or the Eclipse Distribution License
+ * v1.0 which is available at
+ * https://www.eclipse.org/org/documents/edl-v10.php.
+ * 
+ * SPDX-License-Identifier: EPL-2.0 OR BSD-3-Clause
+ ********************************************************************************/
+
+package org.server;
+
+import org.eclipse.californium.core.CoapResource;
+import org.eclipse.californium.core.coap.CoAP.ResponseCode;
+import org.eclipse.californium.core.server.resources.CoapExchange;
+
+
+/**
+ * WakeStatResource is a CoAP resource that provides the wake analysis of the clients.
+ * 
+ * It reports the statistics of the intervals between the wakes of each client,
+ * the estimated wake period and its drift.
+ */
+public class WakeStatResource extends CoapResource {
+
+    private SharedData sharedData;
+
+    /**
+     * Constructor for WakeStatResource.
+     * 
+     * @param sharedData SharedData object that contains the wake analyzer.
+     */
+    public WakeStatResource(SharedData sharedData) {
+        // Set resource identifier
+        super("wakestat");
+        this.sharedData = sharedData;
+        // Set display name
+        getAttributes().setTitle("Wake Stat Resource");
+    }
+
+    /**
+     * Handle GET requests.
+     * 
+     * @param exchange CoapExchange object that contains the request and response.
+     */
+    @Override
+    public void handleGET(CoapExchange exchange) {
+
+        // Log the request
+        ServerLog.info("Received GET, Resource: wakestat");
+
+        // Send the response
+        exchange.respond(ResponseCode.CONTENT, sharedData.wake.getStats());
+        ServerLog.info("Sent Response, Resource: wakestat");
+    }
+}